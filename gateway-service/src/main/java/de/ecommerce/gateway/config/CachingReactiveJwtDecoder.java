@@ -0,0 +1,83 @@
+package de.ecommerce.gateway.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the tokens verified by the delegate decoder until they expire, so the following requests of a
+ * session skip the signature check.
+ * <p>
+ * Tokens are keyed by their SHA-256 digest, a token with another signature never matches. An entry is
+ * dropped at the {@code exp} of its token, the least used entries above {@code maximumSize}.
+ * Revocation is still checked for every request, see {@code RevokedTokenStore}.
+ * Metrics: {@code gateway.jwt.verifications}, the time spent in the delegate, and the {@code cache.*}
+ * metrics of {@code verified-tokens}.
+ * </p>
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+public class CachingReactiveJwtDecoder implements ReactiveJwtDecoder {
+
+    private final ReactiveJwtDecoder delegate;
+    private final Cache<String, Jwt> verifiedTokens;
+    private final Timer verifications;
+
+    public CachingReactiveJwtDecoder(ReactiveJwtDecoder delegate, long maximumSize, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(Expiry.creating((String digest, Jwt jwt) -> untilExpiry(jwt)))
+                .recordStats()
+                .build();
+        this.verifications = Timer.builder("gateway.jwt.verifications")
+                .description("Time spent verifying tokens which were not cached")
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "verified-tokens");
+    }
+
+    @Override
+    public Mono<Jwt> decode(String token) {
+        String digest = digest(token);
+        Jwt cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null)
+            return Mono.just(cached);
+
+        return Mono.defer(() -> {
+                    long start = System.nanoTime();
+                    return delegate.decode(token)
+                            .doOnTerminate(() -> verifications.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+                })
+                .doOnNext(jwt -> verifiedTokens.put(digest, jwt));
+    }
+
+    private static Duration untilExpiry(Jwt jwt) {
+        if (jwt.getExpiresAt() == null)
+            return Duration.ZERO;
+        Duration remaining = Duration.between(Instant.now(), jwt.getExpiresAt());
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
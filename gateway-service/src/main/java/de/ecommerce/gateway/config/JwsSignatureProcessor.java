@@ -0,0 +1,54 @@
+package de.ecommerce.gateway.config;
+
+import com.nimbusds.jwt.JWT;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import reactor.core.publisher.Mono;
+
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.text.ParseException;
+
+/**
+ * Verifies the token signature with the JDK providers and returns the claims of the token.
+ * <p>
+ * Used by {@link JwtDecoderConfig} for ES256 and EdDSA tokens, Nimbus itself needs an extra
+ * library (Tink) for Ed25519. Timestamps are validated afterwards by the decoder.
+ * </p>
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+public class JwsSignatureProcessor implements Converter<JWT, Mono<JWTClaimsSet>> {
+
+    private final SigningAlgorithm signingAlgorithm;
+    private final PublicKey publicKey;
+
+    public JwsSignatureProcessor(SigningAlgorithm signingAlgorithm, PublicKey publicKey) {
+        this.signingAlgorithm = signingAlgorithm;
+        this.publicKey = publicKey;
+    }
+
+    @Override
+    public Mono<JWTClaimsSet> convert(JWT jwt) {
+        if (!(jwt instanceof SignedJWT signedJwt))
+            return Mono.error(new BadJwtException("Unsigned tokens are not supported"));
+
+        if (!signingAlgorithm.getJwsAlgorithm().equals(signedJwt.getHeader().getAlgorithm()))
+            return Mono.error(new BadJwtException("Unsupported token algorithm: " + signedJwt.getHeader().getAlgorithm()));
+
+        try {
+            Signature signature = Signature.getInstance(signingAlgorithm.getSignatureAlgorithm());
+            signature.initVerify(publicKey);
+            signature.update(signedJwt.getSigningInput());
+            if (!signature.verify(signedJwt.getSignature().decode()))
+                return Mono.error(new BadJwtException("Invalid token signature"));
+
+            return Mono.just(signedJwt.getJWTClaimsSet());
+        } catch (GeneralSecurityException | ParseException e) {
+            return Mono.error(new BadJwtException("Failed to verify token signature", e));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package de.ecommerce.gateway.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+
+/**
+ * This class is responsible for creating the JWT decoder for the configured signing algorithm.
+ * <p>
+ * The public key is read from {@code spring.security.oauth2.resourceserver.jwt.public-key-location}
+ * and must match {@code jwt.algorithm}: RSA for RS256, P-256 for ES256 and Ed25519 for EdDSA.
+ * Verified tokens are cached until they expire, see {@link CachingReactiveJwtDecoder}.
+ * </p>
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@Configuration
+public class JwtDecoderConfig {
+
+    @Bean
+    public ReactiveJwtDecoder jwtDecoder(
+            @Value("${jwt.algorithm:RS256}") SigningAlgorithm signingAlgorithm,
+            @Value("${spring.security.oauth2.resourceserver.jwt.public-key-location}") Resource publicKeyLocation,
+            @Value("${jwt.verified-cache.maximum-size:100000}") long verifiedCacheSize,
+            MeterRegistry meterRegistry) throws Exception {
+
+        return new CachingReactiveJwtDecoder(createDecoder(signingAlgorithm, readPublicKey(signingAlgorithm, publicKeyLocation)),
+                verifiedCacheSize, meterRegistry);
+    }
+
+    /**
+     * Creates a decoder which verifies tokens signed with the given algorithm.
+     * @param signingAlgorithm the algorithm the tokens are signed with
+     * @param publicKey the public key matching the algorithm
+     * @return the decoder
+     */
+    public static ReactiveJwtDecoder createDecoder(SigningAlgorithm signingAlgorithm, PublicKey publicKey) {
+        if (signingAlgorithm == SigningAlgorithm.RS256) {
+            return NimbusReactiveJwtDecoder.withPublicKey((RSAPublicKey) publicKey)
+                    .signatureAlgorithm(SignatureAlgorithm.RS256)
+                    .build();
+        }
+        return new NimbusReactiveJwtDecoder(new JwsSignatureProcessor(signingAlgorithm, publicKey));
+    }
+
+    private static PublicKey readPublicKey(SigningAlgorithm signingAlgorithm, Resource location) throws Exception {
+        String key = new String(location.getInputStream().readAllBytes(), StandardCharsets.UTF_8)
+                .replace("-----BEGIN PUBLIC KEY-----", "")
+                .replace("-----END PUBLIC KEY-----", "")
+                .replaceAll("\\s+", "");
+        byte[] decoded = Base64.getDecoder().decode(key);
+        return KeyFactory.getInstance(signingAlgorithm.getKeyAlgorithm()).generatePublic(new X509EncodedKeySpec(decoded));
+    }
+}
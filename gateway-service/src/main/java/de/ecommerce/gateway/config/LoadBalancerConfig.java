@@ -0,0 +1,67 @@
+package de.ecommerce.gateway.config;
+
+import de.ecommerce.gateway.services.OutlierDetector;
+import de.ecommerce.gateway.services.OutlierEjectingServiceInstanceListSupplier;
+import de.ecommerce.gateway.services.PeakEwmaLoadBalancer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * Balances the {@code lb://} routes with the {@link PeakEwmaLoadBalancer} instead of round robin.
+ * Instances failing their requests are left out by the {@link OutlierDetector} until they recover.
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@Configuration
+@LoadBalancerClients(defaultConfiguration = LoadBalancerConfig.ServiceConfiguration.class)
+public class LoadBalancerConfig {
+
+    /**
+     * Created in the context of every load balanced service, so it must not be a {@code @Configuration}.
+     */
+    public static class ServiceConfiguration {
+
+        @Bean
+        public PeakEwmaLoadBalancer reactorServiceInstanceLoadBalancer(Environment environment,
+                                                                       LoadBalancerClientFactory loadBalancerClientFactory) {
+            String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+            return new PeakEwmaLoadBalancer(
+                    loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class),
+                    serviceId,
+                    environment.getProperty("load-balancer.decay-time", Duration.class, Duration.ofSeconds(10)));
+        }
+
+        @Bean
+        public OutlierDetector outlierDetector(Environment environment, MeterRegistry meterRegistry) {
+            return new OutlierDetector(environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME),
+                    new OutlierDetector.Settings(
+                            environment.getProperty("outlier-detection.consecutive-failures", Integer.class, 5),
+                            environment.getProperty("outlier-detection.base-ejection-time", Duration.class, Duration.ofSeconds(10)),
+                            environment.getProperty("outlier-detection.max-ejection-time", Duration.class, Duration.ofMinutes(5)),
+                            environment.getProperty("outlier-detection.max-ejected-share", Double.class, 0.5)),
+                    meterRegistry);
+        }
+
+        /**
+         * The instances of the discovery client, cached, without the ejected ones.
+         */
+        @Bean
+        public ServiceInstanceListSupplier serviceInstanceListSupplier(ConfigurableApplicationContext context,
+                                                                       OutlierDetector outlierDetector) {
+            return ServiceInstanceListSupplier.builder()
+                    .withDiscoveryClient()
+                    .withCaching()
+                    .with((applicationContext, delegate) ->
+                            new OutlierEjectingServiceInstanceListSupplier(delegate, outlierDetector))
+                    .build(context);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package de.ecommerce.gateway.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.ecommerce.gateway.services.LocalRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.cloud.gateway.support.ipresolver.RemoteAddressResolver;
+import org.springframework.cloud.gateway.support.ipresolver.XForwardedRemoteAddressResolver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Locale;
+
+/**
+ * Rate limiters and key resolvers of the {@code RequestRateLimiter} filters of the routes.
+ * <p>
+ * {@code ipRateLimiter} with {@code clientIpKeyResolver} limits every client address, {@code emailRateLimiter}
+ * with {@code loginEmailKeyResolver} the login attempts per email from all addresses together. The email is read
+ * from the body cached by the {@code CacheRequestBody} filter, which must come first on the route.
+ * </p>
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@Configuration
+@Slf4j
+public class RateLimiterConfig {
+
+    @Bean
+    @Primary
+    public LocalRateLimiter ipRateLimiter(ConfigurationService configurationService, MeterRegistry meterRegistry,
+                                          @Value("${rate-limiter.maximum-keys:100000}") long maximumKeys) {
+        return new LocalRateLimiter("ip-rate-limiter", configurationService, maximumKeys, meterRegistry);
+    }
+
+    @Bean
+    public LocalRateLimiter emailRateLimiter(ConfigurationService configurationService, MeterRegistry meterRegistry,
+                                             @Value("${rate-limiter.maximum-keys:100000}") long maximumKeys) {
+        return new LocalRateLimiter("email-rate-limiter", configurationService, maximumKeys, meterRegistry);
+    }
+
+    /**
+     * Resolves the address of the client. Behind proxies, {@code rate-limiter.trusted-proxies} is the number
+     * of proxies whose {@code X-Forwarded-For} entries are trusted, other entries could be set by the client.
+     */
+    @Bean
+    @Primary
+    public KeyResolver clientIpKeyResolver(@Value("${rate-limiter.trusted-proxies:0}") int trustedProxies) {
+        RemoteAddressResolver addressResolver = trustedProxies > 0
+                ? XForwardedRemoteAddressResolver.maxTrustedIndex(trustedProxies)
+                : new RemoteAddressResolver() {
+                };
+
+        return exchange -> {
+            InetSocketAddress address = addressResolver.resolve(exchange);
+            return address == null || address.getAddress() == null
+                    ? Mono.empty()
+                    : Mono.just(address.getAddress().getHostAddress());
+        };
+    }
+
+    /**
+     * Resolves the {@code email} of a login request, requests without one are not limited by email.
+     */
+    @Bean
+    public KeyResolver loginEmailKeyResolver(ObjectMapper objectMapper) {
+        return exchange -> {
+            String body = exchange.getAttribute(ServerWebExchangeUtils.CACHED_REQUEST_BODY_ATTR);
+            if (body == null)
+                return Mono.empty();
+
+            try {
+                JsonNode email = objectMapper.readTree(body).path("email");
+                return email.isTextual() && !email.asText().isBlank()
+                        ? Mono.just(email.asText().trim().toLowerCase(Locale.ROOT))
+                        : Mono.empty();
+            } catch (IOException e) {
+                log.debug("Login request body is not JSON: {}", e.getMessage());
+                return Mono.empty();
+            }
+        };
+    }
+}
@@ -26,7 +26,10 @@ public class SecurityConfig {
         return http
                 .csrf(ServerHttpSecurity.CsrfSpec::disable)
                 .authorizeExchange(exchanges -> exchanges
+                        .pathMatchers(HttpMethod.POST, "/auth/register/batch").hasRole("ADMIN")
                         .pathMatchers(HttpMethod.POST, "/auth/login", "/auth/register", "/auth/password/reset-password-request", "auth/password/change-password").permitAll()
+                        // The access token has usually expired here, the security-service checks the refresh token cookie
+                        .pathMatchers(HttpMethod.POST, "/auth/token/refresh", "/auth/token/revoke").permitAll()
                         .pathMatchers(HttpMethod.GET, "/auth/**").permitAll()
                         .pathMatchers("/user/**").hasAnyRole("USER", "ADMIN")
                         .pathMatchers("/admin/**").hasRole("ADMIN")
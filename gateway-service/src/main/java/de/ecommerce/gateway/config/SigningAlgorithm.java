@@ -0,0 +1,46 @@
+package de.ecommerce.gateway.config;
+
+import com.nimbusds.jose.JWSAlgorithm;
+
+/**
+ * Signing algorithms accepted for JWT tokens.
+ * Must match the algorithm configured in the security-service.
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+public enum SigningAlgorithm {
+    RS256("RSA", "SHA256withRSA", JWSAlgorithm.RS256),
+    ES256("EC", "SHA256withECDSAinP1363Format", JWSAlgorithm.ES256),
+    EDDSA("Ed25519", "Ed25519", JWSAlgorithm.EdDSA);
+
+    private final String keyAlgorithm;
+    private final String signatureAlgorithm;
+    private final JWSAlgorithm jwsAlgorithm;
+
+    SigningAlgorithm(String keyAlgorithm, String signatureAlgorithm, JWSAlgorithm jwsAlgorithm) {
+        this.keyAlgorithm = keyAlgorithm;
+        this.signatureAlgorithm = signatureAlgorithm;
+        this.jwsAlgorithm = jwsAlgorithm;
+    }
+
+    /**
+     * @return the JCA key algorithm used to parse the public key
+     */
+    public String getKeyAlgorithm() {
+        return keyAlgorithm;
+    }
+
+    /**
+     * @return the JCA signature algorithm; ECDSA uses the raw R||S format required by JWS
+     */
+    public String getSignatureAlgorithm() {
+        return signatureAlgorithm;
+    }
+
+    /**
+     * @return the value expected in the {@code alg} header of the token
+     */
+    public JWSAlgorithm getJwsAlgorithm() {
+        return jwsAlgorithm;
+    }
+}
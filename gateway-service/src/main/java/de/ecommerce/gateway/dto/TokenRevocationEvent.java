@@ -0,0 +1,25 @@
+package de.ecommerce.gateway.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Revocation of access tokens published by the security-service.
+ * <p>
+ * Either one token is revoked by its {@code jti}, or every token of a user issued before {@code issuedBefore}.
+ * The revocation is dropped at {@code expiresAt}, when the revoked tokens have expired anyway.
+ * Times are milliseconds since the epoch.
+ * </p>
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TokenRevocationEvent {
+    private String jti;
+    private String userId;
+    private Long issuedBefore;
+    private long expiresAt;
+}
@@ -0,0 +1,128 @@
+package de.ecommerce.gateway.filters;
+
+import de.ecommerce.gateway.services.GradientConcurrencyLimit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.RouteToRequestUrlFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Limits the requests in flight per route with a {@link GradientConcurrencyLimit}, requests above the limit
+ * are rejected at once with 503.
+ * <p>
+ * Runs after the route filters, so requests already rejected by the rate limiters do not count as fast
+ * round trips, and right before the load balancer. Requests authenticated with a JWT may use the whole limit,
+ * anonymous requests like registrations only {@code concurrency-limit.anonymous-share} of it.
+ * Metrics, tagged with {@code route}: {@code gateway.concurrency.limit}, {@code gateway.concurrency.inflight}
+ * and {@code gateway.concurrency.rejected}, also tagged with {@code priority}.
+ * </p>
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@Component
+public class ConcurrencyLimitFilter implements GlobalFilter, Ordered {
+
+    private static final byte[] OVERLOADED_RESPONSE = "{\"message\":\"Service is overloaded. Please try again later.\"}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private record RouteLimit(GradientConcurrencyLimit limit, Counter authenticatedRejections,
+                              Counter anonymousRejections) {
+    }
+
+    private final GradientConcurrencyLimit.Settings settings;
+    private final double anonymousShare;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, RouteLimit> routeLimits = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimitFilter(@Value("${concurrency-limit.initial-limit:20}") int initialLimit,
+                                  @Value("${concurrency-limit.min-limit:4}") int minLimit,
+                                  @Value("${concurrency-limit.max-limit:500}") int maxLimit,
+                                  @Value("${concurrency-limit.tolerance:1.5}") double tolerance,
+                                  @Value("${concurrency-limit.smoothing:0.2}") double smoothing,
+                                  @Value("${concurrency-limit.window:1s}") Duration window,
+                                  @Value("${concurrency-limit.anonymous-share:0.8}") double anonymousShare,
+                                  MeterRegistry meterRegistry) {
+        this.settings = new GradientConcurrencyLimit.Settings(initialLimit, minLimit, maxLimit, tolerance, smoothing, window);
+        this.anonymousShare = anonymousShare;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null)
+            return chain.filter(exchange);
+
+        RouteLimit routeLimit = routeLimits.computeIfAbsent(route.getId(), this::createRouteLimit);
+
+        return ReactiveSecurityContextHolder.getContext()
+                .mapNotNull(SecurityContext::getAuthentication)
+                .ofType(JwtAuthenticationToken.class)
+                .hasElement()
+                .flatMap(authenticated -> {
+                    if (!routeLimit.limit().tryAcquire(authenticated ? 1.0 : anonymousShare)) {
+                        (authenticated ? routeLimit.authenticatedRejections() : routeLimit.anonymousRejections()).increment();
+                        return rejectOverloaded(exchange);
+                    }
+
+                    long start = System.nanoTime();
+                    return chain.filter(exchange).doFinally(signal -> {
+                        long now = System.nanoTime();
+                        routeLimit.limit().release(now - start, signal != SignalType.CANCEL, now);
+                    });
+                });
+    }
+
+    private RouteLimit createRouteLimit(String routeId) {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(settings, System.nanoTime());
+        Gauge.builder("gateway.concurrency.limit", limit, GradientConcurrencyLimit::getLimit)
+                .description("Current concurrency limit of the route")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        Gauge.builder("gateway.concurrency.inflight", limit, GradientConcurrencyLimit::getInflight)
+                .description("Requests of the route in flight")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        return new RouteLimit(limit, rejectionCounter(routeId, "authenticated"), rejectionCounter(routeId, "anonymous"));
+    }
+
+    private Counter rejectionCounter(String routeId, String priority) {
+        return Counter.builder("gateway.concurrency.rejected")
+                .description("Requests rejected above the concurrency limit")
+                .tags("route", routeId, "priority", priority)
+                .register(meterRegistry);
+    }
+
+    private Mono<Void> rejectOverloaded(ServerWebExchange exchange) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(OVERLOADED_RESPONSE)));
+    }
+
+    @Override
+    public int getOrder() {
+        return RouteToRequestUrlFilter.ROUTE_TO_URL_FILTER_ORDER - 1;
+    }
+}
@@ -1,20 +1,33 @@
 package de.ecommerce.gateway.filters;
 
 
+import de.ecommerce.gateway.services.RevokedTokenStore;
 import lombok.RequiredArgsConstructor;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.Ordered;
-import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.server.reactive.ServerHttpRequest;
-import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
 /**
- * This class is responsible for decoding JWT tokens and adding user information to the request headers.
+ * This class is responsible for adding user information of the JWT token to the request headers.
  * It implements the GlobalFilter interface and is used in the Spring Cloud Gateway.
+ * The token is not decoded again, the filter uses the {@code Jwt} the resource server has already verified.
+ * Tokens revoked before their expiry, see {@link RevokedTokenStore}, are rejected with 401.
+ * The services trust the user headers, so headers sent by the client are overwritten, and removed from requests
+ * without a token.
  * @author EgorBusuioc
  * 27.05.2025
  */
@@ -22,30 +35,58 @@ import reactor.core.publisher.Mono;
 @RequiredArgsConstructor
 public class JWTGlobalFilter implements GlobalFilter, Ordered {
 
-    private final ReactiveJwtDecoder jwtDecoder;
+    private static final byte[] REVOKED_RESPONSE = "{\"message\":\"Token has been revoked. Please log in again.\"}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private static final String USER_EMAIL_HEADER = "X-User-Email";
+    private static final String USER_ROLE_HEADER = "X-User-Role";
+
+    private final RevokedTokenStore revokedTokenStore;
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
 
-        String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        return ReactiveSecurityContextHolder.getContext()
+                .mapNotNull(SecurityContext::getAuthentication)
+                .ofType(JwtAuthenticationToken.class)
+                .map(authentication -> filterAuthenticated(exchange, chain, authentication.getToken()))
+                .defaultIfEmpty(Mono.defer(() -> filterAnonymous(exchange, chain)))
+                .flatMap(Function.identity());
+    }
+
+    private Mono<Void> filterAuthenticated(ServerWebExchange exchange, GatewayFilterChain chain, Jwt token) {
+        if (revokedTokenStore.isRevoked(token.getId(), token.getClaimAsString("userId"), token.getIssuedAt()))
+            return rejectRevoked(exchange);
+
+        String userEmail = token.getClaimAsString("username");
+        String userRole = token.getClaimAsString("role");
 
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            return chain.filter(exchange);
-        }
+        ServerHttpRequest request = exchange.getRequest().mutate()
+                .headers(headers -> {
+                    headers.set(USER_EMAIL_HEADER, userEmail);
+                    headers.set(USER_ROLE_HEADER, userRole);
+                })
+                .build();
 
-        String jwtToken = authHeader.substring(7);
+        return chain.filter(exchange.mutate().request(request).build());
+    }
 
-        return jwtDecoder.decode(jwtToken).flatMap(token -> {
-            String userEmail = token.getClaimAsString("username");
-            String userRole = token.getClaimAsString("role");
+    private Mono<Void> filterAnonymous(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest().mutate()
+                .headers(headers -> {
+                    headers.remove(USER_EMAIL_HEADER);
+                    headers.remove(USER_ROLE_HEADER);
+                })
+                .build();
 
-            ServerHttpRequest request = exchange.getRequest().mutate()
-                    .header("X-User-Email", userEmail)
-                    .header("X-User-Role", userRole)
-                    .build();
+        return chain.filter(exchange.mutate().request(request).build());
+    }
 
-            return chain.filter(exchange.mutate().request(request).build());
-        });
+    private Mono<Void> rejectRevoked(ServerWebExchange exchange) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.UNAUTHORIZED);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(REVOKED_RESPONSE)));
     }
 
     @Override
@@ -0,0 +1,131 @@
+package de.ecommerce.gateway.services;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit which adapts to the round trip time of the requests, after the gradient algorithm.
+ * <p>
+ * The average RTT of a short window is compared with a long-term average. While the short RTT stays close to
+ * the long one, the limit grows by about its square root per window, allowing a small queue downstream. When
+ * requests get slower, a queue is building up and the limit shrinks by the ratio of both, down to half per
+ * window. The limit only grows while at least half of it is used, so an idle route keeps its limit.
+ * Slots are taken with a compare-and-set, the limit itself is recomputed once per window.
+ * </p>
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+public class GradientConcurrencyLimit {
+
+    private static final int MIN_WINDOW_SAMPLES = 10;
+    private static final int LONG_RTT_WINDOWS = 600;
+    private static final int LONG_RTT_WARMUP_WINDOWS = 10;
+
+    /**
+     * @param initialLimit the limit until the first windows are measured
+     * @param minLimit the limit never drops below
+     * @param maxLimit the limit never grows above
+     * @param tolerance how much slower than the long-term RTT the requests may get before the limit shrinks
+     * @param smoothing the share of the new limit taken over per window
+     * @param window the minimum length of a measurement window
+     */
+    public record Settings(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing,
+                           Duration window) {
+    }
+
+    private final Settings settings;
+    private final long windowNanos;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private volatile int limit;
+
+    // Guarded by this
+    private double estimatedLimit;
+    private double longRtt;
+    private int longRttWindows;
+    private long windowStart;
+    private long windowRttSum;
+    private int windowSamples;
+    private int windowMaxInflight;
+
+    public GradientConcurrencyLimit(Settings settings, long now) {
+        this.settings = settings;
+        this.windowNanos = settings.window().toNanos();
+        this.estimatedLimit = settings.initialLimit();
+        this.limit = settings.initialLimit();
+        this.windowStart = now;
+    }
+
+    /**
+     * Takes a slot if less than the given share of the limit is in use.
+     *
+     * @param share the share of the limit the caller may use, 1 for the whole limit
+     * @return {@code true} if the slot was taken and must be released
+     */
+    public boolean tryAcquire(double share) {
+        int allowed = Math.max(1, (int) (limit * share));
+        while (true) {
+            int current = inflight.get();
+            if (current >= allowed)
+                return false;
+            if (inflight.compareAndSet(current, current + 1))
+                return true;
+        }
+    }
+
+    /**
+     * Releases a slot taken with {@link #tryAcquire(double)}.
+     *
+     * @param rttNanos the time the request took
+     * @param sampled whether the time is used for the limit, not for cancelled requests
+     * @param now the current time in nanos
+     */
+    public void release(long rttNanos, boolean sampled, long now) {
+        int inflightBefore = inflight.getAndDecrement();
+        if (sampled)
+            onSample(rttNanos, inflightBefore, now);
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    private synchronized void onSample(long rttNanos, int inflightBefore, long now) {
+        windowRttSum += rttNanos;
+        windowSamples++;
+        windowMaxInflight = Math.max(windowMaxInflight, inflightBefore);
+        if (now - windowStart < windowNanos || windowSamples < MIN_WINDOW_SAMPLES)
+            return;
+
+        update((double) windowRttSum / windowSamples, windowMaxInflight);
+        windowStart = now;
+        windowRttSum = 0;
+        windowSamples = 0;
+        windowMaxInflight = 0;
+    }
+
+    private void update(double shortRtt, int maxInflight) {
+        if (longRttWindows < LONG_RTT_WARMUP_WINDOWS) {
+            longRttWindows++;
+            longRtt += (shortRtt - longRtt) / longRttWindows;
+        } else {
+            longRtt += (shortRtt - longRtt) * 2 / (LONG_RTT_WINDOWS + 1);
+        }
+
+        // After a long overload the long-term RTT has drifted up, it catches up with the recovered RTT
+        if (longRtt / shortRtt > 2)
+            longRtt *= 0.95;
+
+        if (maxInflight < estimatedLimit / 2)
+            return;
+
+        double gradient = Math.max(0.5, Math.min(1.0, settings.tolerance() * longRtt / shortRtt));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        newLimit = estimatedLimit * (1 - settings.smoothing()) + newLimit * settings.smoothing();
+        estimatedLimit = Math.max(settings.minLimit(), Math.min(settings.maxLimit(), newLimit));
+        limit = (int) estimatedLimit;
+    }
+}
@@ -0,0 +1,149 @@
+package de.ecommerce.gateway.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.validation.annotation.Validated;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket rate limiter kept in the memory of the gateway, for the {@code RequestRateLimiter} filter.
+ * <p>
+ * Every key of a route has its own bucket, which is stored as the time at which it is full again. Taking tokens
+ * moves that time forward with a single compare-and-set, so requests never lock. The buckets live in a Caffeine
+ * cache of at most {@code maximumKeys} entries; a bucket untouched for its refill time is full and dropped.
+ * The limits are set per route with the filter arguments prefixed by the name of the limiter, e.g.
+ * {@code ip-rate-limiter.replenish-rate}. Every gateway instance limits on its own.
+ * Metric: {@code gateway.rate-limiter.requests}, tagged with {@code limiter}, {@code route} and {@code result}.
+ * </p>
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+public class LocalRateLimiter extends AbstractRateLimiter<LocalRateLimiter.Config> {
+
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    public static final String BURST_CAPACITY_HEADER = "X-RateLimit-Burst-Capacity";
+
+    @Data
+    @Validated
+    public static class Config {
+
+        /**
+         * Tokens added to the bucket every {@link #replenishPeriod}.
+         */
+        @Min(1)
+        private int replenishRate = 10;
+
+        @NotNull
+        private Duration replenishPeriod = Duration.ofSeconds(1);
+
+        /**
+         * Maximum tokens of the bucket, the largest burst of requests allowed at once.
+         */
+        @Min(1)
+        private int burstCapacity = 20;
+
+        /**
+         * Tokens taken by one request.
+         */
+        @Min(1)
+        private int requestedTokens = 1;
+
+        long tokenNanos() {
+            return Math.max(1, replenishPeriod.toNanos() / replenishRate);
+        }
+    }
+
+    /**
+     * @param fullAt the time the bucket is full again, in nanos of the clock
+     * @param refillTime the time an empty bucket takes to be full, it is dropped when idle this long
+     */
+    private record Bucket(AtomicLong fullAt, Duration refillTime) {
+    }
+
+    private final String name;
+    private final Config defaultConfig = new Config();
+    private final Cache<String, Bucket> buckets;
+    private final LongSupplier clock;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public LocalRateLimiter(String name, ConfigurationService configurationService, long maximumKeys,
+                            MeterRegistry meterRegistry) {
+        this(name, configurationService, maximumKeys, meterRegistry, System::nanoTime);
+    }
+
+    LocalRateLimiter(String name, ConfigurationService configurationService, long maximumKeys,
+                     MeterRegistry meterRegistry, LongSupplier clock) {
+        super(Config.class, name, configurationService);
+        this.name = name;
+        this.clock = clock;
+        this.meterRegistry = meterRegistry;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumKeys)
+                .expireAfter(Expiry.accessing((String key, Bucket bucket) -> bucket.refillTime()))
+                .ticker(clock::getAsLong)
+                .build();
+    }
+
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id) {
+        Config config = getConfig().getOrDefault(routeId, defaultConfig);
+        long tokenNanos = config.tokenNanos();
+        long costNanos = tokenNanos * config.getRequestedTokens();
+        long capacityNanos = tokenNanos * config.getBurstCapacity();
+
+        long now = clock.getAsLong();
+        Bucket bucket = buckets.get(routeId + ':' + id,
+                key -> new Bucket(new AtomicLong(now), Duration.ofNanos(capacityNanos)));
+
+        while (true) {
+            long fullAt = bucket.fullAt().get();
+            // Nanos until the bucket is full again once the tokens are taken, the bucket holds capacityNanos
+            long missingNanos = Math.max(fullAt - now, 0) + costNanos;
+            if (missingNanos > capacityNanos)
+                return Mono.just(deny(routeId, config, missingNanos - capacityNanos));
+
+            if (bucket.fullAt().compareAndSet(fullAt, now + missingNanos))
+                return Mono.just(allow(routeId, config, (capacityNanos - missingNanos) / tokenNanos));
+        }
+    }
+
+    private Response allow(String routeId, Config config, long remaining) {
+        counter(routeId, "allowed").increment();
+        return new Response(true, Map.of(
+                REMAINING_HEADER, Long.toString(remaining),
+                BURST_CAPACITY_HEADER, Integer.toString(config.getBurstCapacity())));
+    }
+
+    private Response deny(String routeId, Config config, long waitNanos) {
+        counter(routeId, "denied").increment();
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        return new Response(false, Map.of(
+                REMAINING_HEADER, "0",
+                BURST_CAPACITY_HEADER, Integer.toString(config.getBurstCapacity()),
+                HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds)));
+    }
+
+    private Counter counter(String routeId, String result) {
+        return counters.computeIfAbsent(routeId + ':' + result, key -> Counter.builder("gateway.rate-limiter.requests")
+                .description("Requests checked by the local rate limiter")
+                .tags("limiter", name, "route", routeId, "result", result)
+                .register(meterRegistry));
+    }
+}
@@ -0,0 +1,261 @@
+package de.ecommerce.gateway.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Passive health tracking of the instances of a service, from the outcome of the requests sent to them.
+ * <p>
+ * An instance with {@code consecutiveFailures} connect failures or 5xx responses in a row is ejected from the
+ * candidates of the load balancer, see {@link OutlierEjectingServiceInstanceListSupplier}. The first ejection
+ * lasts {@code baseEjectionTime} and every further one twice as long, up to {@code maxEjectionTime}. After the
+ * ejection the instance is half-open: it gets one probe request, which brings it back or ejects it again. The probe
+ * is claimed when the instances are handed to the load balancer, and that request gets the probed instance only.
+ * At most {@code maxEjectedShare} of the instances are ejected at once, and if no instance is left all are used.
+ * Metrics, tagged with {@code service}: {@code gateway.outlier.ejections} and {@code gateway.outlier.healthy-instances}.
+ * </p>
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@Slf4j
+public class OutlierDetector implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    /**
+     * @param consecutiveFailures failures in a row which eject an instance
+     * @param baseEjectionTime the length of the first ejection
+     * @param maxEjectionTime the longest ejection, an instance healthy this long starts again at the base time
+     * @param maxEjectedShare the share of the instances which may be ejected at once
+     */
+    public record Settings(int consecutiveFailures, Duration baseEjectionTime, Duration maxEjectionTime,
+                           double maxEjectedShare) {
+    }
+
+    private final String serviceId;
+    private final Settings settings;
+    private final long baseEjectionNanos;
+    private final long maxEjectionNanos;
+    private final Map<String, InstanceHealth> health = new ConcurrentHashMap<>();
+    private final Counter ejections;
+    private volatile int instanceCount;
+
+    public OutlierDetector(String serviceId, Settings settings, MeterRegistry meterRegistry) {
+        this.serviceId = serviceId;
+        this.settings = settings;
+        this.baseEjectionNanos = settings.baseEjectionTime().toNanos();
+        this.maxEjectionNanos = settings.maxEjectionTime().toNanos();
+        this.ejections = Counter.builder("gateway.outlier.ejections")
+                .description("Instances ejected from the load balancer after failing requests")
+                .tag("service", serviceId)
+                .register(meterRegistry);
+        Gauge.builder("gateway.outlier.healthy-instances", this, OutlierDetector::healthyInstances)
+                .description("Instances of the service not ejected")
+                .tag("service", serviceId)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param instances the instances of the service
+     * @param now the current time in nanos
+     * @return the instances which may get requests, all of them if every instance is ejected, or only the
+     *         half-open instance whose probe this request has claimed
+     */
+    public List<ServiceInstance> available(List<ServiceInstance> instances, long now) {
+        instanceCount = instances.size();
+        if (health.size() > instances.size())
+            dropRemovedInstances(instances);
+
+        List<ServiceInstance> available = new ArrayList<>(instances.size());
+        for (ServiceInstance instance : instances) {
+            InstanceHealth instanceHealth = health.get(key(instance));
+            if (instanceHealth == null || !instanceHealth.isEjected())
+                available.add(instance);
+            else if (instanceHealth.tryClaimProbe(now))
+                return List.of(instance);
+        }
+        return available.isEmpty() ? instances : available;
+    }
+
+    void completed(ServiceInstance instance, boolean failed, long now) {
+        String key = key(instance);
+        InstanceHealth instanceHealth = failed
+                ? health.computeIfAbsent(key, k -> new InstanceHealth())
+                : health.get(key);
+        if (instanceHealth == null)
+            return;
+
+        if (!failed) {
+            if (instanceHealth.succeeded(now))
+                log.info("Instance {} of {} is back after a successful probe", key, serviceId);
+            return;
+        }
+
+        switch (instanceHealth.failed(settings.consecutiveFailures())) {
+            case PROBE_FAILED -> eject(key, instanceHealth, now, "a failed probe");
+            case THRESHOLD_REACHED -> {
+                synchronized (this) {
+                    if (ejectedInstances() + 1 > Math.floor(instanceCount * settings.maxEjectedShare()))
+                        log.warn("Instance {} of {} keeps failing, but {} instances are already ejected",
+                                key, serviceId, ejectedInstances());
+                    else
+                        eject(key, instanceHealth, now, settings.consecutiveFailures() + " failed requests in a row");
+                }
+            }
+            case NONE -> {
+            }
+        }
+    }
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        if (lbResponse == null || !lbResponse.hasServer())
+            return;
+
+        completed(lbResponse.getServer(), isFailure(completionContext), System.nanoTime());
+    }
+
+    /**
+     * A 5xx response with {@code Retry-After} is a busy instance shedding load, like the security-service
+     * with a full password hashing queue, and does not count as a failure.
+     */
+    private static boolean isFailure(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        if (completionContext.status() == CompletionContext.Status.FAILED)
+            return true;
+        return completionContext.getClientResponse() instanceof ResponseData response
+                && response.getHttpStatus() != null && response.getHttpStatus().is5xxServerError()
+                && (response.getHeaders() == null || !response.getHeaders().containsKey(HttpHeaders.RETRY_AFTER));
+    }
+
+    private void eject(String key, InstanceHealth instanceHealth, long now, String reason) {
+        Duration ejectionTime = Duration.ofNanos(instanceHealth.eject(now, baseEjectionNanos, maxEjectionNanos));
+        ejections.increment();
+        log.warn("Instance {} of {} is ejected for {} after {}", key, serviceId, ejectionTime, reason);
+    }
+
+    private int ejectedInstances() {
+        int ejected = 0;
+        for (InstanceHealth instanceHealth : health.values())
+            if (instanceHealth.isEjected())
+                ejected++;
+        return ejected;
+    }
+
+    private double healthyInstances() {
+        return Math.max(0, instanceCount - ejectedInstances());
+    }
+
+    private void dropRemovedInstances(List<ServiceInstance> instances) {
+        Set<String> current = new HashSet<>();
+        for (ServiceInstance instance : instances)
+            current.add(key(instance));
+        health.keySet().retainAll(current);
+    }
+
+    private static String key(ServiceInstance instance) {
+        return instance.getInstanceId() != null ? instance.getInstanceId() : instance.getHost() + ":" + instance.getPort();
+    }
+
+    private enum Failure {
+        NONE, THRESHOLD_REACHED, PROBE_FAILED
+    }
+
+    private final class InstanceHealth {
+
+        // Guarded by this
+        private int consecutiveFailures;
+        private int ejections;
+        private boolean ejected;
+        private long ejectedUntil;
+        private long probeStartedAt;
+        private boolean probeInFlight;
+        private long restoredAt;
+
+        synchronized boolean isEjected() {
+            return ejected;
+        }
+
+        /**
+         * An ejected instance admits one probe once its ejection is over, claimed by the first caller. A probe
+         * which never completes, or whose request never went out, is given up after the base ejection time.
+         *
+         * @return {@code true} if the caller has claimed the probe
+         */
+        synchronized boolean tryClaimProbe(long now) {
+            if (!ejected || now - ejectedUntil < 0 || probeInFlight && now - probeStartedAt <= baseEjectionNanos)
+                return false;
+
+            probeInFlight = true;
+            probeStartedAt = now;
+            return true;
+        }
+
+        /**
+         * @return {@code true} if the request was the probe which brings the instance back
+         */
+        synchronized boolean succeeded(long now) {
+            consecutiveFailures = 0;
+            if (!ejected || !probeInFlight)
+                return false;
+
+            ejected = false;
+            probeInFlight = false;
+            restoredAt = now;
+            return true;
+        }
+
+        synchronized Failure failed(int threshold) {
+            if (ejected) {
+                if (!probeInFlight)
+                    return Failure.NONE;
+                probeInFlight = false;
+                return Failure.PROBE_FAILED;
+            }
+            return ++consecutiveFailures >= threshold ? Failure.THRESHOLD_REACHED : Failure.NONE;
+        }
+
+        /**
+         * @return the length of the ejection in nanos
+         */
+        synchronized long eject(long now, long baseNanos, long maxNanos) {
+            if (!ejected && ejections > 0 && now - restoredAt > maxNanos)
+                ejections = 0;
+
+            long ejectionNanos = Math.min(maxNanos, baseNanos << Math.min(ejections, 20));
+            ejections++;
+            ejected = true;
+            ejectedUntil = now + ejectionNanos;
+            consecutiveFailures = 0;
+            return ejectionNanos;
+        }
+    }
+}
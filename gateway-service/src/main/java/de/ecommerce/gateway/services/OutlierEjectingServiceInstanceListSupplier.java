@@ -0,0 +1,34 @@
+package de.ecommerce.gateway.services;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.loadbalancer.core.DelegatingServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * Leaves the instances ejected by the {@link OutlierDetector} out of the candidates of the load balancer.
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+public class OutlierEjectingServiceInstanceListSupplier extends DelegatingServiceInstanceListSupplier {
+
+    private final OutlierDetector outlierDetector;
+
+    public OutlierEjectingServiceInstanceListSupplier(ServiceInstanceListSupplier delegate, OutlierDetector outlierDetector) {
+        super(delegate);
+        this.outlierDetector = outlierDetector;
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get() {
+        return getDelegate().get().map(instances -> outlierDetector.available(instances, System.nanoTime()));
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get(Request request) {
+        return getDelegate().get(request).map(instances -> outlierDetector.available(instances, System.nanoTime()));
+    }
+}
@@ -0,0 +1,207 @@
+package de.ecommerce.gateway.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+
+/**
+ * Load balancer which sends a request to the less loaded of two random instances.
+ * <p>
+ * The load of an instance is its peak EWMA latency times its requests in flight plus one. A slower response
+ * raises the latency at once, faster ones lower it gradually, and without responses it decays towards zero
+ * within {@code decayTime}, so a slow instance is tried again after a while. An instance without any response
+ * yet is avoided while it has requests in flight. Failed requests and 5xx responses never lower the latency.
+ * The candidates leave out the instances ejected by the {@link OutlierDetector}, so the load of an instance
+ * missing from them is kept until it has decayed to nothing, and an ejected instance comes back with its latency.
+ * The balancer is also the {@link LoadBalancerLifecycle} which tells it when the requests start and complete.
+ * </p>
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@Slf4j
+public class PeakEwmaLoadBalancer implements ReactorServiceInstanceLoadBalancer,
+        LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    private static final double PENALTY = Long.MAX_VALUE >> 16;
+    // After this many decay times the latency is below 0.01 % and the load is the same as a new one
+    private static final int FORGOTTEN_AFTER_DECAYS = 10;
+
+    private final ObjectProvider<ServiceInstanceListSupplier> supplierProvider;
+    private final String serviceId;
+    private final double decayNanos;
+    private final Supplier<RandomGenerator> random;
+    private final Map<String, InstanceLoad> loads = new ConcurrentHashMap<>();
+    private volatile long nextCleanup;
+
+    public PeakEwmaLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> supplierProvider, String serviceId,
+                                Duration decayTime) {
+        this(supplierProvider, serviceId, decayTime, ThreadLocalRandom::current);
+    }
+
+    PeakEwmaLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> supplierProvider, String serviceId,
+                         Duration decayTime, Supplier<RandomGenerator> random) {
+        this.supplierProvider = supplierProvider;
+        this.serviceId = serviceId;
+        this.decayNanos = decayTime.toNanos();
+        this.random = random;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = supplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(instances -> {
+            ServiceInstance instance = choose(instances, System.nanoTime());
+            if (instance == null) {
+                log.warn("No servers available for service: {}", serviceId);
+                return new EmptyResponse();
+            }
+            if (supplier instanceof SelectedInstanceCallback callback)
+                callback.selectedServiceInstance(instance);
+            return new DefaultResponse(instance);
+        });
+    }
+
+    ServiceInstance choose(List<ServiceInstance> instances, long now) {
+        if (instances.isEmpty())
+            return null;
+        if (loads.size() > instances.size() && now - nextCleanup >= 0)
+            dropForgottenInstances(instances, now);
+        if (instances.size() == 1)
+            return instances.get(0);
+
+        RandomGenerator generator = random.get();
+        int first = generator.nextInt(instances.size());
+        int second = generator.nextInt(instances.size() - 1);
+        if (second >= first)
+            second++;
+
+        ServiceInstance firstInstance = instances.get(first);
+        ServiceInstance secondInstance = instances.get(second);
+        return load(firstInstance).cost(now) <= load(secondInstance).cost(now) ? firstInstance : secondInstance;
+    }
+
+    void started(ServiceInstance instance) {
+        load(instance).started();
+    }
+
+    void completed(ServiceInstance instance, long rttNanos, boolean failed, long now) {
+        InstanceLoad load = loads.get(key(instance));
+        if (load != null)
+            load.completed(rttNanos, failed, now);
+    }
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+        if (request.getContext() instanceof TimedRequestContext context)
+            context.setRequestStartTime(System.nanoTime());
+        if (lbResponse.hasServer())
+            started(lbResponse.getServer());
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        if (lbResponse == null || !lbResponse.hasServer())
+            return;
+
+        long now = System.nanoTime();
+        long rttNanos = completionContext.getLoadBalancerRequest().getContext() instanceof TimedRequestContext context
+                && context.getRequestStartTime() > 0 ? now - context.getRequestStartTime() : 0;
+        boolean failed = completionContext.status() == CompletionContext.Status.FAILED
+                || completionContext.getClientResponse() instanceof ResponseData response
+                && response.getHttpStatus() != null && response.getHttpStatus().is5xxServerError();
+        completed(lbResponse.getServer(), rttNanos, failed, now);
+    }
+
+    private InstanceLoad load(ServiceInstance instance) {
+        return loads.computeIfAbsent(key(instance), key -> new InstanceLoad());
+    }
+
+    /**
+     * Drops the loads of the instances which are no candidates and have decayed, at most once per decay time.
+     */
+    private void dropForgottenInstances(List<ServiceInstance> instances, long now) {
+        nextCleanup = now + (long) decayNanos;
+        Set<String> current = new HashSet<>();
+        for (ServiceInstance instance : instances)
+            current.add(key(instance));
+        loads.entrySet().removeIf(entry -> !current.contains(entry.getKey()) && entry.getValue().isForgotten(now));
+    }
+
+    private static String key(ServiceInstance instance) {
+        return instance.getInstanceId() != null ? instance.getInstanceId() : instance.getHost() + ":" + instance.getPort();
+    }
+
+    private final class InstanceLoad {
+
+        // Guarded by this
+        private int inflight;
+        private double latencyNanos;
+        private long lastUpdate;
+
+        synchronized void started() {
+            inflight++;
+        }
+
+        synchronized void completed(long rttNanos, boolean failed, long now) {
+            inflight = Math.max(0, inflight - 1);
+            double decayed = decayedLatency(now);
+            if (rttNanos > decayed)
+                latencyNanos = rttNanos;
+            else if (failed)
+                latencyNanos = decayed;
+            else {
+                double weight = Math.exp(-(now - lastUpdate) / decayNanos);
+                latencyNanos = latencyNanos * weight + rttNanos * (1 - weight);
+            }
+            lastUpdate = now;
+        }
+
+        synchronized double cost(long now) {
+            double latency = decayedLatency(now);
+            if (latency == 0 && inflight > 0)
+                return PENALTY + inflight;
+            return latency * (inflight + 1);
+        }
+
+        synchronized boolean isForgotten(long now) {
+            return inflight == 0 && (latencyNanos == 0 || now - lastUpdate > FORGOTTEN_AFTER_DECAYS * decayNanos);
+        }
+
+        private double decayedLatency(long now) {
+            return latencyNanos == 0 ? 0 : latencyNanos * Math.exp(-Math.max(0, now - lastUpdate) / decayNanos);
+        }
+    }
+}
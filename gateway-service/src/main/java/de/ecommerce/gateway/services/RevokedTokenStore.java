@@ -0,0 +1,97 @@
+package de.ecommerce.gateway.services;
+
+import de.ecommerce.gateway.dto.TokenRevocationEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.PartitionOffset;
+import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory set of access tokens revoked before their expiry, checked for every request.
+ * <p>
+ * Revocations are read from the compacted {@value #TOPIC} topic, every gateway reads all of it from the
+ * beginning. The partitions are assigned manually, without a consumer group, so no offsets are committed and
+ * no group is left behind by a restarted gateway. A revocation is kept only until the tokens it revokes have expired,
+ * so the set holds at most one access token lifetime of revocations. Both checks are single hash lookups.
+ * </p>
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@Service
+@Slf4j
+public class RevokedTokenStore {
+
+    public static final String TOPIC = "revoked-tokens";
+
+    /**
+     * @param issuedBefore tokens of the user issued before this time are revoked, whole seconds as in {@code iat}
+     * @param expiresAt the time the revocation is dropped
+     */
+    private record UserRevocation(long issuedBefore, long expiresAt) {
+    }
+
+    // jti -> time the revocation is dropped
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    private final Map<String, UserRevocation> revokedUsers = new ConcurrentHashMap<>();
+
+    @KafkaListener(topicPartitions = @TopicPartition(topic = TOPIC,
+            partitionOffsets = @PartitionOffset(partition = "*", initialOffset = "0")),
+            properties = "enable.auto.commit=false")
+    public void onRevocation(TokenRevocationEvent event) {
+        if (event.getExpiresAt() <= System.currentTimeMillis())
+            return;
+
+        if (event.getJti() != null)
+            revokedTokens.merge(event.getJti(), event.getExpiresAt(), Math::max);
+
+        if (event.getUserId() != null && event.getIssuedBefore() != null) {
+            // iat has whole seconds, so every token issued in the second of the revocation is revoked.
+            // The security-service issues the new tokens of the user with an iat from the next second on.
+            long issuedBefore = (event.getIssuedBefore() + 999) / 1000 * 1000;
+            revokedUsers.merge(event.getUserId(), new UserRevocation(issuedBefore, event.getExpiresAt()),
+                    (current, next) -> new UserRevocation(Math.max(current.issuedBefore(), next.issuedBefore()),
+                            Math.max(current.expiresAt(), next.expiresAt())));
+        }
+    }
+
+    /**
+     * @param jti the id of the token, may be {@code null}
+     * @param userId the user of the token, may be {@code null}
+     * @param issuedAt the time the token was issued, may be {@code null}
+     * @return {@code true} if the token has been revoked
+     */
+    public boolean isRevoked(String jti, String userId, Instant issuedAt) {
+        long now = System.currentTimeMillis();
+
+        if (jti != null) {
+            Long expiresAt = revokedTokens.get(jti);
+            if (expiresAt != null && expiresAt > now)
+                return true;
+        }
+
+        if (userId != null && issuedAt != null) {
+            UserRevocation revocation = revokedUsers.get(userId);
+            return revocation != null && revocation.expiresAt() > now
+                    && issuedAt.toEpochMilli() < revocation.issuedBefore();
+        }
+        return false;
+    }
+
+    public int size() {
+        return revokedTokens.size() + revokedUsers.size();
+    }
+
+    @Scheduled(fixedDelayString = "${revoked-tokens.purge-interval:1m}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+        revokedUsers.values().removeIf(revocation -> revocation.expiresAt() <= now);
+        log.debug("{} token revocations in effect", size());
+    }
+}
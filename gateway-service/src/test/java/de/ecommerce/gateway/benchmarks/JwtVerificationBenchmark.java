@@ -0,0 +1,106 @@
+package de.ecommerce.gateway.benchmarks;
+
+import de.ecommerce.gateway.config.CachingReactiveJwtDecoder;
+import de.ecommerce.gateway.config.JwtDecoderConfig;
+import de.ecommerce.gateway.config.SigningAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many tokens per second the gateway decoder verifies for every {@link SigningAlgorithm}.
+ * The size of the token is printed for every algorithm in the setup.
+ * <p>
+ * {@code verify} is one signature check. Before the gateway filter reused the authenticated token, a request
+ * paid for it twice. {@code verifyCached} is the cost of a request whose token is in the
+ * {@link CachingReactiveJwtDecoder}, as for every request of a session after the first one.
+ * </p>
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    @Param({"RS256", "ES256", "EDDSA"})
+    public SigningAlgorithm signingAlgorithm;
+
+    private ReactiveJwtDecoder decoder;
+    private ReactiveJwtDecoder cachingDecoder;
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        KeyPair keyPair = generateKeyPair(signingAlgorithm);
+        decoder = JwtDecoderConfig.createDecoder(signingAlgorithm, keyPair.getPublic());
+        cachingDecoder = new CachingReactiveJwtDecoder(decoder, 1000, new SimpleMeterRegistry());
+        token = signToken(signingAlgorithm, keyPair);
+
+        System.out.printf("%n%s token size: %d bytes%n", signingAlgorithm,
+                token.getBytes(StandardCharsets.US_ASCII).length);
+    }
+
+    @Benchmark
+    public Jwt verify() {
+        return decoder.decode(token).block();
+    }
+
+    @Benchmark
+    public Jwt verifyCached() {
+        return cachingDecoder.decode(token).block();
+    }
+
+    static KeyPair generateKeyPair(SigningAlgorithm signingAlgorithm) throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(signingAlgorithm.getKeyAlgorithm());
+        switch (signingAlgorithm) {
+            case RS256 -> generator.initialize(2048);
+            case ES256 -> generator.initialize(new ECGenParameterSpec("secp256r1"));
+            case EDDSA -> { }
+        }
+        return generator.generateKeyPair();
+    }
+
+    /**
+     * Creates a token with the same claims as the security-service login token.
+     */
+    static String signToken(SigningAlgorithm signingAlgorithm, KeyPair keyPair) throws Exception {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        long now = System.currentTimeMillis() / 1000;
+
+        String header = "{\"alg\":\"" + signingAlgorithm.getJwsAlgorithm().getName() + "\",\"typ\":\"JWT\"}";
+        String payload = "{\"sub\":\"User details\",\"username\":\"benchmark@hessenland.de\",\"role\":\"CITIZEN\"," +
+                "\"userId\":\"01JXBENCHMARKUSER000000000\",\"iat\":" + now + ",\"iss\":\"BUSUIOC-SECURITY\"," +
+                "\"exp\":" + (now + TimeUnit.HOURS.toSeconds(1)) + "}";
+        String signingInput = encoder.encodeToString(header.getBytes(StandardCharsets.UTF_8)) + "." +
+                encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+
+        Signature signature = Signature.getInstance(signingAlgorithm.getSignatureAlgorithm());
+        signature.initSign(keyPair.getPrivate());
+        signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+        return signingInput + "." + encoder.encodeToString(signature.sign());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,69 @@
+package de.ecommerce.gateway.benchmarks;
+
+import de.ecommerce.gateway.services.LocalRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time the {@link LocalRateLimiter} adds to a request, for one hot key shared by all threads
+ * and for many keys, on one and on four threads.
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    private static final String ROUTE_ID = "security-service-login";
+
+    @Param({"1", "100000"})
+    public int keys;
+
+    private LocalRateLimiter rateLimiter;
+    private String[] ids;
+
+    @Setup
+    public void setUp() {
+        rateLimiter = new LocalRateLimiter("ip-rate-limiter", null, 200_000, new SimpleMeterRegistry());
+
+        // High enough that most requests are allowed, so the compare-and-set path is measured
+        LocalRateLimiter.Config config = new LocalRateLimiter.Config();
+        config.setReplenishRate(1_000_000_000);
+        config.setBurstCapacity(1_000_000);
+        rateLimiter.getConfig().put(ROUTE_ID, config);
+
+        ids = new String[keys];
+        for (int i = 0; i < keys; i++)
+            ids[i] = "10.0." + (i >> 8 & 0xFF) + "." + (i & 0xFF) + "-" + i;
+    }
+
+    @Benchmark
+    public RateLimiter.Response isAllowed() {
+        return rateLimiter.isAllowed(ROUTE_ID, ids[ThreadLocalRandom.current().nextInt(keys)]).block();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public RateLimiter.Response isAllowedContended() {
+        return rateLimiter.isAllowed(ROUTE_ID, ids[ThreadLocalRandom.current().nextInt(keys)]).block();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(RateLimiterBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
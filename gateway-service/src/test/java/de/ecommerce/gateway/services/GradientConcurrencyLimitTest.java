@@ -0,0 +1,80 @@
+package de.ecommerce.gateway.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+class GradientConcurrencyLimitTest {
+
+    private static final GradientConcurrencyLimit.Settings SETTINGS =
+            new GradientConcurrencyLimit.Settings(20, 4, 200, 1.5, 0.2, Duration.ofSeconds(1));
+    private static final long WINDOW = Duration.ofSeconds(1).toNanos();
+    private static final long RTT = Duration.ofMillis(10).toNanos();
+
+    private long now;
+
+    @Test
+    void growsWhileTheRoundTripTimeIsSteady() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(SETTINGS, now);
+
+        runWindows(limit, 20, RTT, true);
+
+        assertThat(limit.getLimit()).isGreaterThan(30);
+    }
+
+    @Test
+    void shrinksWhenTheRoundTripTimeGrows() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(SETTINGS, now);
+        runWindows(limit, 20, RTT, true);
+        int steadyLimit = limit.getLimit();
+
+        runWindows(limit, 20, RTT * 4, true);
+
+        assertThat(limit.getLimit()).isLessThan(steadyLimit / 2);
+        assertThat(limit.getLimit()).isGreaterThanOrEqualTo(SETTINGS.minLimit());
+    }
+
+    @Test
+    void keepsTheLimitWhileMostlyIdle() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(SETTINGS, now);
+
+        runWindows(limit, 20, RTT, false);
+
+        assertThat(limit.getLimit()).isEqualTo(SETTINGS.initialLimit());
+    }
+
+    @Test
+    void lowerPriorityRequestsGetAShareOfTheLimit() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(SETTINGS, now);
+
+        for (int i = 0; i < 16; i++)
+            assertThat(limit.tryAcquire(0.8)).isTrue();
+
+        assertThat(limit.tryAcquire(0.8)).isFalse();
+        for (int i = 0; i < 4; i++)
+            assertThat(limit.tryAcquire(1.0)).isTrue();
+        assertThat(limit.tryAcquire(1.0)).isFalse();
+    }
+
+    /**
+     * Runs windows of requests which either fill the current limit or use a single slot.
+     */
+    private void runWindows(GradientConcurrencyLimit limit, int windows, long rtt, boolean saturated) {
+        for (int window = 0; window < windows; window++) {
+            int concurrent = saturated ? limit.getLimit() : 1;
+            for (int round = 0; round < 10; round++) {
+                for (int i = 0; i < concurrent; i++)
+                    limit.tryAcquire(1.0);
+                now += WINDOW / 10;
+                for (int i = 0; i < concurrent; i++)
+                    limit.release(rtt, true, now);
+            }
+        }
+    }
+}
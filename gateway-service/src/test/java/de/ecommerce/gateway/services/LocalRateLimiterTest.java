@@ -0,0 +1,74 @@
+package de.ecommerce.gateway.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+class LocalRateLimiterTest {
+
+    private static final String ROUTE_ID = "security-service-login";
+
+    private final AtomicLong clock = new AtomicLong(1_000);
+    private LocalRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        rateLimiter = new LocalRateLimiter("ip-rate-limiter", null, 100, new SimpleMeterRegistry(), clock::get);
+
+        LocalRateLimiter.Config config = new LocalRateLimiter.Config();
+        config.setReplenishRate(1);
+        config.setReplenishPeriod(Duration.ofSeconds(10));
+        config.setBurstCapacity(3);
+        rateLimiter.getConfig().put(ROUTE_ID, config);
+    }
+
+    @Test
+    void allowsTheBurstThenDeniesUntilATokenIsAdded() {
+        for (int remaining = 2; remaining >= 0; remaining--) {
+            RateLimiter.Response response = isAllowed("10.0.0.1");
+            assertThat(response.isAllowed()).isTrue();
+            assertThat(response.getHeaders()).containsEntry(LocalRateLimiter.REMAINING_HEADER, Integer.toString(remaining));
+        }
+
+        RateLimiter.Response denied = isAllowed("10.0.0.1");
+        assertThat(denied.isAllowed()).isFalse();
+        assertThat(denied.getHeaders()).containsEntry(HttpHeaders.RETRY_AFTER, "10");
+
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertThat(isAllowed("10.0.0.1").isAllowed()).isTrue();
+        assertThat(isAllowed("10.0.0.1").isAllowed()).isFalse();
+    }
+
+    @Test
+    void keysHaveTheirOwnBuckets() {
+        for (int i = 0; i < 3; i++)
+            isAllowed("10.0.0.1");
+
+        assertThat(isAllowed("10.0.0.1").isAllowed()).isFalse();
+        assertThat(isAllowed("10.0.0.2").isAllowed()).isTrue();
+    }
+
+    @Test
+    void idleBucketsAreFullAgain() {
+        for (int i = 0; i < 3; i++)
+            isAllowed("10.0.0.1");
+
+        clock.addAndGet(Duration.ofMinutes(5).toNanos());
+        assertThat(isAllowed("10.0.0.1").getHeaders()).containsEntry(LocalRateLimiter.REMAINING_HEADER, "2");
+    }
+
+    private RateLimiter.Response isAllowed(String id) {
+        return rateLimiter.isAllowed(ROUTE_ID, id).block();
+    }
+}
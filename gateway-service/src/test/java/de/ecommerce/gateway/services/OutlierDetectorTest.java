@@ -0,0 +1,104 @@
+package de.ecommerce.gateway.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+class OutlierDetectorTest {
+
+    private static final long SECOND = Duration.ofSeconds(1).toNanos();
+
+    private final ServiceInstance first = instance(1);
+    private final ServiceInstance second = instance(2);
+    private final ServiceInstance third = instance(3);
+    private final List<ServiceInstance> instances = List.of(first, second, third);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final OutlierDetector detector = new OutlierDetector("security-service",
+            new OutlierDetector.Settings(3, Duration.ofSeconds(10), Duration.ofMinutes(5), 0.5), meterRegistry);
+
+    private long now = SECOND;
+
+    @Test
+    void ejectsAnInstanceAfterConsecutiveFailures() {
+        fail(first, 2);
+        succeed(first);
+        fail(first, 2);
+        assertThat(detector.available(instances, now)).contains(first);
+
+        fail(first, 1);
+
+        assertThat(detector.available(instances, now)).containsExactly(second, third);
+        assertThat(meterRegistry.get("gateway.outlier.ejections").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("gateway.outlier.healthy-instances").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void admitsOneProbeAfterTheEjectionAndRestoresOnSuccess() {
+        fail(first, 3);
+
+        now += 10 * SECOND;
+        assertThat(detector.available(instances, now)).containsExactly(first);
+        assertThat(detector.available(instances, now)).containsExactly(second, third);
+
+        detector.completed(first, false, now);
+        assertThat(detector.available(instances, now)).containsExactly(first, second, third);
+    }
+
+    @Test
+    void givesUpAProbeWhichNeverCompletes() {
+        fail(first, 3);
+
+        now += 10 * SECOND;
+        assertThat(detector.available(instances, now)).containsExactly(first);
+        now += 10 * SECOND;
+        assertThat(detector.available(instances, now)).containsExactly(second, third);
+        now += 1;
+        assertThat(detector.available(instances, now)).containsExactly(first);
+    }
+
+    @Test
+    void doublesTheEjectionAfterAFailedProbe() {
+        fail(first, 3);
+
+        now += 10 * SECOND;
+        assertThat(detector.available(instances, now)).containsExactly(first);
+        detector.completed(first, true, now);
+
+        now += 19 * SECOND;
+        assertThat(detector.available(instances, now)).doesNotContain(first);
+        now += SECOND;
+        assertThat(detector.available(instances, now)).containsExactly(first);
+    }
+
+    @Test
+    void keepsTheEjectedShareBelowTheLimit() {
+        fail(first, 3);
+        fail(second, 3);
+
+        assertThat(detector.available(instances, now)).containsExactly(second, third);
+    }
+
+    private void fail(ServiceInstance instance, int times) {
+        detector.available(instances, now);
+        for (int i = 0; i < times; i++)
+            detector.completed(instance, true, now);
+    }
+
+    private void succeed(ServiceInstance instance) {
+        detector.completed(instance, false, now);
+    }
+
+    private static ServiceInstance instance(int number) {
+        return new DefaultServiceInstance("security-service-" + number, "security-service", "10.0.0." + number, 8082, false);
+    }
+}
@@ -0,0 +1,159 @@
+package de.ecommerce.gateway.services;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Simulates stand-in security-service instances, one of them slow as during GC pauses, and compares the latency
+ * of round robin with the {@link PeakEwmaLoadBalancer}. The load is stable under both: round robin sends the slow
+ * instance 100 requests per second, 90 % of what its workers can serve. Runs on a simulated clock, so the result
+ * is the same on every machine.
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+class PeakEwmaLoadBalancerSimulationTest {
+
+    private static final int REQUESTS = 100_000;
+    private static final double REQUESTS_PER_SECOND = 400;
+    // Requests an instance works on at once, like its password hashing threads
+    private static final int WORKERS = 4;
+    private static final Duration[] SERVICE_TIMES = {
+            Duration.ofMillis(20), Duration.ofMillis(20), Duration.ofMillis(20), Duration.ofMillis(36)};
+
+    private interface Policy {
+
+        ServiceInstance choose(List<ServiceInstance> instances, long now);
+
+        default void started(ServiceInstance instance) {
+        }
+
+        default void completed(ServiceInstance instance, long rttNanos, long now) {
+        }
+    }
+
+    private record Completion(long time, int instance, long arrival) {
+    }
+
+    private static final class SimulatedInstance {
+
+        private final double meanServiceNanos;
+        private final ArrayDeque<Long> queue = new ArrayDeque<>();
+        private int busy;
+
+        private SimulatedInstance(Duration serviceTime) {
+            this.meanServiceNanos = serviceTime.toNanos();
+        }
+    }
+
+    @Test
+    void peakEwmaKeepsTheTailLatencyDownWithASlowInstance() {
+        int[] next = new int[1];
+        Policy roundRobin = (instances, now) -> instances.get(next[0]++ % instances.size());
+
+        Random balancerRandom = new Random(7);
+        PeakEwmaLoadBalancer balancer = new PeakEwmaLoadBalancer(null, "security-service", Duration.ofSeconds(10),
+                () -> balancerRandom);
+        Policy peakEwma = new Policy() {
+            @Override
+            public ServiceInstance choose(List<ServiceInstance> instances, long now) {
+                return balancer.choose(instances, now);
+            }
+
+            @Override
+            public void started(ServiceInstance instance) {
+                balancer.started(instance);
+            }
+
+            @Override
+            public void completed(ServiceInstance instance, long rttNanos, long now) {
+                balancer.completed(instance, rttNanos, false, now);
+            }
+        };
+
+        long[] roundRobinLatencies = simulate(roundRobin);
+        long[] peakEwmaLatencies = simulate(peakEwma);
+        long roundRobinP99 = percentileMillis(roundRobinLatencies, 0.99);
+        long peakEwmaP99 = percentileMillis(peakEwmaLatencies, 0.99);
+
+        assertThat(peakEwmaP99)
+                .as("p99 of peak EWMA %d ms (p50 %d ms) against round robin %d ms (p50 %d ms)",
+                        peakEwmaP99, percentileMillis(peakEwmaLatencies, 0.5),
+                        roundRobinP99, percentileMillis(roundRobinLatencies, 0.5))
+                .isLessThan(roundRobinP99 * 2 / 3);
+    }
+
+    /**
+     * Runs Poisson arrivals against the instances, every instance serves {@value #WORKERS} requests at once
+     * with exponential service times and queues the others.
+     *
+     * @return the latencies of the requests in nanos, sorted
+     */
+    private static long[] simulate(Policy policy) {
+        Random random = new Random(42);
+        List<ServiceInstance> instances = new ArrayList<>();
+        List<SimulatedInstance> simulated = new ArrayList<>();
+        for (int i = 0; i < SERVICE_TIMES.length; i++) {
+            instances.add(new DefaultServiceInstance("security-service-" + i, "security-service", "10.0.0." + i, 8082, false));
+            simulated.add(new SimulatedInstance(SERVICE_TIMES[i]));
+        }
+
+        PriorityQueue<Completion> completions = new PriorityQueue<>((a, b) -> Long.compare(a.time(), b.time()));
+        long[] latencies = new long[REQUESTS];
+        int arrived = 0;
+        int completed = 0;
+        long nextArrival = 0;
+
+        while (completed < REQUESTS) {
+            if (arrived < REQUESTS && (completions.isEmpty() || nextArrival <= completions.peek().time())) {
+                long now = nextArrival;
+                int index = instances.indexOf(policy.choose(instances, now));
+                policy.started(instances.get(index));
+
+                SimulatedInstance instance = simulated.get(index);
+                if (instance.busy < WORKERS) {
+                    instance.busy++;
+                    completions.add(new Completion(now + exponential(random, instance.meanServiceNanos), index, now));
+                } else {
+                    instance.queue.add(now);
+                }
+                arrived++;
+                nextArrival = now + exponential(random, 1e9 / REQUESTS_PER_SECOND);
+                continue;
+            }
+
+            Completion completion = completions.poll();
+            long now = completion.time();
+            latencies[completed++] = now - completion.arrival();
+            policy.completed(instances.get(completion.instance()), now - completion.arrival(), now);
+
+            SimulatedInstance instance = simulated.get(completion.instance());
+            Long queued = instance.queue.poll();
+            if (queued != null)
+                completions.add(new Completion(now + exponential(random, instance.meanServiceNanos), completion.instance(), queued));
+            else
+                instance.busy--;
+        }
+
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private static long exponential(Random random, double mean) {
+        return (long) (-Math.log(1 - random.nextDouble()) * mean);
+    }
+
+    private static long percentileMillis(long[] sortedLatencies, double percentile) {
+        return Duration.ofNanos(sortedLatencies[(int) (sortedLatencies.length * percentile) - 1]).toMillis();
+    }
+}
@@ -0,0 +1,48 @@
+package de.ecommerce.gateway.services;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+class PeakEwmaLoadBalancerTest {
+
+    private static final long SECOND = Duration.ofSeconds(1).toNanos();
+
+    private final Random random = new Random(7);
+    private final PeakEwmaLoadBalancer balancer = new PeakEwmaLoadBalancer(null, "security-service",
+            Duration.ofSeconds(10), () -> random);
+    private final ServiceInstance slow = instance(1);
+    private final ServiceInstance fast = instance(2);
+
+    @Test
+    void keepsTheLatencyOfAnInstanceLeftOutOfTheCandidates() {
+        long now = SECOND;
+        respond(slow, Duration.ofMillis(500), now);
+        respond(fast, Duration.ofMillis(10), now);
+
+        // The slow instance is ejected for a while
+        assertThat(balancer.choose(List.of(fast), now)).isEqualTo(fast);
+
+        for (int i = 0; i < 10; i++)
+            assertThat(balancer.choose(List.of(slow, fast), now + SECOND)).isEqualTo(fast);
+    }
+
+    private void respond(ServiceInstance instance, Duration latency, long now) {
+        balancer.started(instance);
+        balancer.completed(instance, latency.toNanos(), false, now);
+    }
+
+    private static ServiceInstance instance(int number) {
+        return new DefaultServiceInstance("security-service-" + number, "security-service", "10.0.0." + number, 8082, false);
+    }
+}
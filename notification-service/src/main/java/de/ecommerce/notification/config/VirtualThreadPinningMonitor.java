@@ -0,0 +1,108 @@
+package de.ecommerce.notification.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Reports virtual threads that stay pinned to their carrier thread, which happens when they block inside
+ * {@code synchronized} code or a native frame. A pinned virtual thread holds its carrier, and with it one of
+ * the few carrier threads, until it is unblocked.
+ * <p>
+ * The {@code jdk.VirtualThreadPinned} events are read from an in-process JFR stream. Every pinning longer than
+ * {@code virtual-threads.pinned.threshold} is recorded in {@code virtual-threads.pinned}, and every distinct
+ * stack trace is logged once. Only active when {@code spring.threads.virtual.enabled} is set.
+ * </p>
+ * <p>
+ * Copy of the security-service class, see there.
+ * </p>
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+@Slf4j
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 12;
+
+    private final Duration threshold;
+    private final Timer pinnedTimer;
+    private final Set<String> loggedStackTraces = ConcurrentHashMap.newKeySet();
+    private volatile RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(@Value("${virtual-threads.pinned.threshold:20ms}") Duration threshold,
+                                       MeterRegistry meterRegistry) {
+        this.threshold = threshold;
+        this.pinnedTimer = Timer.builder("virtual-threads.pinned")
+                .description("Time virtual threads were blocked while pinned to their carrier thread")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        RecordingStream recording = new RecordingStream();
+        recording.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recording.onEvent(PINNED_EVENT, this::onPinned);
+        recording.startAsync();
+        stream = recording;
+        log.info("Reporting virtual threads pinned for longer than {}", threshold);
+    }
+
+    @Override
+    public void stop() {
+        RecordingStream recording = stream;
+        stream = null;
+        if (recording != null)
+            recording.close();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return stream != null;
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedTimer.record(event.getDuration());
+
+        String stackTrace = format(event.getStackTrace());
+        if (loggedStackTraces.add(stackTrace))
+            log.warn("Virtual thread pinned for {} ms at:\n{}", event.getDuration().toMillis(), stackTrace);
+    }
+
+    private static String format(RecordedStackTrace stackTrace) {
+        if (stackTrace == null)
+            return "\tunknown";
+
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        // The top frames are the parking code of the JDK, the same for every pinning
+        return frames.stream()
+                .dropWhile(frame -> isParkingFrame(frame.getMethod().getType().getName()))
+                .limit(LOGGED_FRAMES)
+                .map(frame -> "\tat " + frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                        + "(line " + frame.getLineNumber() + ")")
+                .collect(Collectors.joining("\n"));
+    }
+
+    private static boolean isParkingFrame(String className) {
+        return className.startsWith("java.lang.VirtualThread") || className.startsWith("jdk.internal.")
+                || className.equals("java.lang.Thread") || className.startsWith("java.util.concurrent.locks.");
+    }
+}
@@ -1,9 +1,7 @@
 package de.ecommerce.security;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.Bean;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
@@ -13,9 +11,4 @@ public class SecurityServiceApplication {
     public static void main(String[] args) {
         SpringApplication.run(SecurityServiceApplication.class, args);
     }
-
-    @Bean
-    public ModelMapper modelMapper() {
-        return new ModelMapper();
-    }
 }
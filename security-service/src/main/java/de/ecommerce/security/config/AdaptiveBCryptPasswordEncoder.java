@@ -0,0 +1,87 @@
+package de.ecommerce.security.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt encoder which reports hashes weaker than its strength for an upgrade.
+ * <p>
+ * {@link #upgradeEncoding(String)} reports every hash stored with a lower strength. Together with the
+ * {@code UserDetailsPasswordService} this rehashes the password on the next successful login, so the strength
+ * can be raised without a migration. Stronger hashes are kept, a hash is never weakened.
+ * {@link #calibrateStrength(Duration, int, int)} measures which strength fits a target hash time on this machine.
+ * </p>
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@Slf4j
+public class AdaptiveBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("\\A\\$2(a|y|b)?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+    private static final String CALIBRATION_PASSWORD = "Calibration-Password-1";
+    private static final int CALIBRATION_ROUNDS = 3;
+
+    private final int strength;
+
+    public AdaptiveBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    /**
+     * Measures the highest strength whose hash time does not exceed the target on this machine.
+     *
+     * @param targetHashTime the wanted time of one hash
+     * @param minStrength the lowest strength allowed, returned even if it is slower than the target
+     * @param maxStrength the highest strength allowed
+     * @return the measured strength
+     */
+    public static int calibrateStrength(Duration targetHashTime, int minStrength, int maxStrength) {
+        int chosen = minStrength;
+        for (int strength = minStrength; strength <= maxStrength; strength++) {
+            long nanos = measureHashTime(strength);
+            log.info("BCrypt strength {} takes {} ms", strength, Duration.ofNanos(nanos).toMillis());
+            if (nanos > targetHashTime.toNanos())
+                break;
+            chosen = strength;
+        }
+        log.info("BCrypt strength {} fits the target hash time of {} ms", chosen, targetHashTime.toMillis());
+        return chosen;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.isEmpty())
+            return false;
+
+        Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+        if (!matcher.matches())
+            return false;
+
+        return Integer.parseInt(matcher.group(2)) < strength;
+    }
+
+    /**
+     * Takes the fastest of a few hashes after a warm-up hash, so JIT compilation is not measured.
+     */
+    private static long measureHashTime(int strength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        encoder.encode(CALIBRATION_PASSWORD);
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < CALIBRATION_ROUNDS; i++) {
+            long start = System.nanoTime();
+            encoder.encode(CALIBRATION_PASSWORD);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+}
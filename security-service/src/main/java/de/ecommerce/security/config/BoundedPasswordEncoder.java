@@ -0,0 +1,57 @@
+package de.ecommerce.security.config;
+
+import de.ecommerce.security.services.PasswordHashingExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Password encoder which runs the hashing of the delegate on the {@link PasswordHashingExecutor}.
+ * <p>
+ * Used for every encode and match, including the ones done by the {@code DaoAuthenticationProvider}
+ * during login. {@link #upgradeEncoding(String)} only reads the hash and runs on the caller thread.
+ * </p>
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final PasswordHashingExecutor hashingExecutor;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, PasswordHashingExecutor hashingExecutor) {
+        this.delegate = delegate;
+        this.hashingExecutor = hashingExecutor;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return hashingExecutor.execute(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return hashingExecutor.execute(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Hashes the passwords in parallel on the {@link PasswordHashingExecutor}.
+     *
+     * @param rawPasswords the passwords to hash
+     * @param parallelism the maximum number of passwords queued or hashed at a time
+     * @return the hashes, in the order of the passwords
+     */
+    public List<String> encodeAll(List<? extends CharSequence> rawPasswords, int parallelism) {
+        List<Supplier<String>> tasks = new ArrayList<>(rawPasswords.size());
+        for (CharSequence rawPassword : rawPasswords)
+            tasks.add(() -> delegate.encode(rawPassword));
+        return hashingExecutor.executeAll(tasks, parallelism);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
@@ -1,17 +1,37 @@
 package de.ecommerce.security.config;
 
+import de.ecommerce.security.dto.CitizenUserDTO;
+import de.ecommerce.security.dto.CredentialsInvalidationEvent;
+import de.ecommerce.security.dto.EmailRequest;
+import de.ecommerce.security.dto.TokenRevocationEvent;
+import de.ecommerce.security.services.AccessTokenRevocationService;
+import de.ecommerce.security.services.UserCredentialsCache;
+import de.ecommerce.security.token.JWTUtils;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.config.TopicConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.KafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * @author EgorBusuioc
@@ -20,6 +40,18 @@ import java.util.Map;
 @Configuration
 public class KafkaConfig {
 
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    /**
+     * Type aliases sent in the type header instead of the class names, the consumers map them to their own classes.
+     */
+    public static final Map<Class<?>, String> TYPE_ALIASES = Map.of(
+            EmailRequest.class, "email",
+            CitizenUserDTO.class, "citizen",
+            CredentialsInvalidationEvent.class, "invalidation",
+            TokenRevocationEvent.class, "revocation");
+
     @Bean
     public NewTopic accountCreationEvent() {
         return new NewTopic("email-events", 3, (short) 1);
@@ -30,6 +62,26 @@ public class KafkaConfig {
         return new NewTopic("user-sending-events", 3, (short) 1);
     }
 
+    @Bean
+    public NewTopic credentialsInvalidationEvent() {
+        return new NewTopic(UserCredentialsCache.INVALIDATION_TOPIC, 1, (short) 1);
+    }
+
+    /**
+     * Compacted to one event per revoked token or user, and events are deleted once the revoked tokens
+     * have expired, so a gateway replaying the topic at startup reads only the revocations still in effect.
+     */
+    @Bean
+    public NewTopic tokenRevocationEvent() {
+        long retentionMillis = JWTUtils.TOKEN_LIFETIME.multipliedBy(2).toMillis();
+        return new NewTopic(AccessTokenRevocationService.TOPIC, 1, (short) 1)
+                .configs(Map.of(
+                        TopicConfig.CLEANUP_POLICY_CONFIG, TopicConfig.CLEANUP_POLICY_COMPACT + "," + TopicConfig.CLEANUP_POLICY_DELETE,
+                        TopicConfig.RETENTION_MS_CONFIG, String.valueOf(retentionMillis),
+                        // Only closed segments are compacted or deleted
+                        TopicConfig.SEGMENT_MS_CONFIG, String.valueOf(retentionMillis / 4)));
+    }
+
     @Bean
     public Map<String, Object> producerConfigs() {
         Map<String, Object> props = new HashMap<>();
@@ -39,13 +91,38 @@ public class KafkaConfig {
                 StringSerializer.class);
         props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG,
                 JsonSerializer.class);
-        props.put(JsonSerializer.TYPE_MAPPINGS,
-                "email:de.ecommerce.security.dto.EmailRequest," +
-                        "citizen:de.ecommerce.security.dto.CitizenUserDTO");
+        props.put(JsonSerializer.TYPE_MAPPINGS, TYPE_ALIASES.entrySet().stream()
+                .map(alias -> alias.getValue() + ":" + alias.getKey().getName())
+                .collect(Collectors.joining(",")));
         props.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, true);
         return props;
     }
 
+    /**
+     * Producer of the outbox relay. The payloads are already serialized, so they are sent as strings;
+     * batching is tuned for the relay, which sends a whole batch and flushes once.
+     */
+    @Bean
+    public ProducerFactory<String, String> outboxProducerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, 20);
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, 256 * 1024);
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+        // Fail fast while the broker is down, the events stay in the outbox
+        props.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, 5000);
+        return new DefaultKafkaProducerFactory<>(props);
+    }
+
+    @Bean
+    public KafkaTemplate<String, String> outboxKafkaTemplate() {
+        return new KafkaTemplate<>(outboxProducerFactory());
+    }
+
     @Bean
     public ProducerFactory<String, Object> producerFactory() {
         return new DefaultKafkaProducerFactory<>(producerConfigs());
@@ -55,4 +132,46 @@ public class KafkaConfig {
     public KafkaTemplate<String, Object> kafkaTemplate() {
         return new KafkaTemplate<>(producerFactory());
     }
+
+    @Bean
+    public Map<String, Object> consumerConfigs() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
+
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+
+        props.put(ErrorHandlingDeserializer.KEY_DESERIALIZER_CLASS, StringDeserializer.class);
+        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class);
+
+        props.put(JsonDeserializer.TYPE_MAPPINGS,
+                "invalidation:de.ecommerce.security.dto.CredentialsInvalidationEvent");
+        props.put(JsonDeserializer.TRUSTED_PACKAGES, "de.ecommerce.security.dto");
+        return props;
+    }
+
+    @Bean
+    public ConsumerFactory<String, Object> consumerFactory() {
+        return new DefaultKafkaConsumerFactory<>(consumerConfigs());
+    }
+
+    @Bean
+    public KafkaListenerContainerFactory<ConcurrentMessageListenerContainer<String, Object>> kafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        if (virtualThreads)
+            factory.getContainerProperties().setListenerTaskExecutor(listenerTaskExecutor());
+        return factory;
+    }
+
+    /**
+     * Boot only applies spring.threads.virtual.enabled to the listener factory it configures itself,
+     * this factory gets its virtual thread executor here.
+     */
+    private static SimpleAsyncTaskExecutor listenerTaskExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("kafka-listener-");
+        executor.setVirtualThreads(true);
+        return executor;
+    }
 }
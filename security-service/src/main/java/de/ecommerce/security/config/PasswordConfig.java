@@ -1,9 +1,14 @@
 package de.ecommerce.security.config;
 
+import de.ecommerce.security.services.PasswordHashingExecutor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.List;
 
 /**
  * This class is responsible for configuring the password encoder used in the application.
@@ -11,14 +16,56 @@ import org.springframework.security.crypto.password.PasswordEncoder;
  * 27.05.2025
  */
 @Configuration
+@Slf4j
 public class PasswordConfig {
 
+    private static final String SELECT_CALIBRATED_STRENGTH = "select strength from bcrypt_calibration where id = 1";
+    private static final String INSERT_CALIBRATED_STRENGTH =
+            "insert into bcrypt_calibration (id, strength, target_hash_time_ms, calibrated_at) " +
+            "values (1, ?, ?, now()) on conflict (id) do nothing";
+
     /**
-     * This method creates a bean of PasswordEncoder using BCryptPasswordEncoder with a strength of 8.
-     * @return PasswordEncoder
+     * This method creates a bean of PasswordEncoder using BCrypt.
+     * <p>
+     * All replicas use the same strength, weaker hashes are rehashed on the next successful login.
+     * With {@code password.bcrypt.calibrate} the first replica measures the strength fitting
+     * {@code password.bcrypt.target-hash-time} and stores it in {@code bcrypt_calibration}, every replica
+     * then uses the stored strength. Deleting the row calibrates again on the next startup. Without it,
+     * {@code password.bcrypt.strength} is used. Hashing runs on the bounded {@link PasswordHashingExecutor}
+     * instead of the request threads.
+     * </p>
+     * @param hashingExecutor the pool the hashing runs on
+     * @param jdbcTemplate the template the calibrated strength is stored and read with
+     * @return PasswordEncoder, which also hashes batches of passwords in parallel
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(8);
+    public BoundedPasswordEncoder passwordEncoder(PasswordHashingExecutor hashingExecutor,
+                                           JdbcTemplate jdbcTemplate,
+                                           @Value("${password.bcrypt.strength:10}") int strength,
+                                           @Value("${password.bcrypt.calibrate:true}") boolean calibrate,
+                                           @Value("${password.bcrypt.target-hash-time:50ms}") Duration targetHashTime,
+                                           @Value("${password.bcrypt.min-strength:10}") int minStrength,
+                                           @Value("${password.bcrypt.max-strength:14}") int maxStrength) {
+        int sharedStrength = calibrate
+                ? calibratedStrength(jdbcTemplate, targetHashTime, minStrength, maxStrength)
+                : strength;
+        if (sharedStrength < minStrength || sharedStrength > maxStrength)
+            throw new IllegalStateException("BCrypt strength " + sharedStrength + " is not between "
+                    + minStrength + " and " + maxStrength);
+
+        log.info("Hashing passwords with BCrypt strength {}", sharedStrength);
+        return new BoundedPasswordEncoder(new AdaptiveBCryptPasswordEncoder(sharedStrength), hashingExecutor);
+    }
+
+    private static int calibratedStrength(JdbcTemplate jdbcTemplate, Duration targetHashTime,
+                                          int minStrength, int maxStrength) {
+        List<Integer> stored = jdbcTemplate.queryForList(SELECT_CALIBRATED_STRENGTH, Integer.class);
+        if (!stored.isEmpty())
+            return stored.get(0);
+
+        int measured = AdaptiveBCryptPasswordEncoder.calibrateStrength(targetHashTime, minStrength, maxStrength);
+        // Replicas starting together may all calibrate, the first insert wins and all of them read it
+        jdbcTemplate.update(INSERT_CALIBRATED_STRENGTH, measured, targetHashTime.toMillis());
+        return jdbcTemplate.queryForObject(SELECT_CALIBRATED_STRENGTH, Integer.class);
     }
 }
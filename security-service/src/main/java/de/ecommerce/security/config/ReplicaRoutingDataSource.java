@@ -0,0 +1,66 @@
+package de.ecommerce.security.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Sends the connections of read-only transactions to the replica and all others to the primary.
+ * <p>
+ * Must be wrapped in a {@code LazyConnectionDataSourceProxy}: the transaction manager asks for the connection
+ * before the transaction is marked read-only, the proxy only fetches it with the first statement.
+ * {@link #forcePrimary()} routes read-only transactions to the primary as well, for reads that must see
+ * a write which may not have been replicated yet.
+ * </p>
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    /**
+     * Closes the scope opened by {@link #forcePrimary()}.
+     */
+    public interface Scope extends AutoCloseable {
+
+        Scope NONE = () -> {
+        };
+
+        @Override
+        void close();
+    }
+
+    private static final ThreadLocal<Boolean> FORCE_PRIMARY = new ThreadLocal<>();
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica) {
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Routes the connections fetched on this thread to the primary until the scope is closed.
+     */
+    public static Scope forcePrimary() {
+        Boolean previous = FORCE_PRIMARY.get();
+        FORCE_PRIMARY.set(Boolean.TRUE);
+        return () -> {
+            if (previous == null)
+                FORCE_PRIMARY.remove();
+            else
+                FORCE_PRIMARY.set(previous);
+        };
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && FORCE_PRIMARY.get() == null
+                ? Route.REPLICA
+                : Route.PRIMARY;
+    }
+}
@@ -0,0 +1,137 @@
+package de.ecommerce.security.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Modifying;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.temporal.Temporal;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.BaseStream;
+
+/**
+ * Records the SQL statements and rows of every call of a repository method, and logs slow calls.
+ * <p>
+ * Metrics, tagged with {@code repository} and {@code method}: {@code repository.method.statements} and
+ * {@code repository.method.rows}, the rows returned or, for {@code @Modifying} queries, the rows changed.
+ * Streams and scalar results such as {@code count()} or {@code existsBy...} are not counted as rows. Calls which
+ * fail are recorded and logged as well. The latency histogram is Boot's {@code spring.data.repository.invocations}.
+ * A call slower than {@code repository.slow-query.threshold} is logged with the last SQL statement,
+ * for a {@code repository.slow-query.sample-rate} share of the slow calls.
+ * </p>
+ * <p>
+ * The services share no module, the user-service carries copies of this class and its configuration.
+ * </p>
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@Slf4j
+public class RepositoryMetricsInterceptor implements MethodInterceptor {
+
+    private record MethodMeters(DistributionSummary statements, DistributionSummary rows, boolean modifying,
+                                boolean scalar) {
+    }
+
+    private final String repository;
+    private final SqlStatementCounter statementCounter;
+    private final MeterRegistry meterRegistry;
+    private final long slowThresholdNanos;
+    private final double sampleRate;
+    private final Map<Method, MethodMeters> meters = new ConcurrentHashMap<>();
+
+    public RepositoryMetricsInterceptor(Class<?> repositoryInterface, SqlStatementCounter statementCounter,
+                                        MeterRegistry meterRegistry, Duration slowThreshold, double sampleRate) {
+        this.repository = repositoryInterface.getSimpleName();
+        this.statementCounter = statementCounter;
+        this.meterRegistry = meterRegistry;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        SqlStatementCounter.ThreadStatements statements = statementCounter.currentThread();
+        long statementsBefore = statements.count();
+        long start = System.nanoTime();
+        Object result = null;
+        boolean failed = true;
+        try {
+            result = invocation.proceed();
+            failed = false;
+            return result;
+        } finally {
+            record(invocation.getMethod(), statements, statementsBefore, start, result, failed);
+        }
+    }
+
+    private void record(Method method, SqlStatementCounter.ThreadStatements statements, long statementsBefore,
+                        long start, Object result, boolean failed) {
+        long duration = System.nanoTime() - start;
+        long executed = statements.count() - statementsBefore;
+        MethodMeters methodMeters = meters.computeIfAbsent(method, this::createMeters);
+        methodMeters.statements().record(executed);
+
+        long rows = failed ? -1 : rows(result, methodMeters);
+        if (rows >= 0)
+            methodMeters.rows().record(rows);
+
+        if (duration >= slowThresholdNanos && ThreadLocalRandom.current().nextDouble() < sampleRate)
+            log.warn("Slow repository call {}.{} {} after {} ms, {} statements, {} rows, last statement: {}",
+                    repository, method.getName(), failed ? "failed" : "returned", duration / 1_000_000, executed,
+                    rows >= 0 ? rows : "?", executed > 0 ? statements.lastSql() : "none");
+    }
+
+    private MethodMeters createMeters(Method method) {
+        return new MethodMeters(
+                DistributionSummary.builder("repository.method.statements")
+                        .description("SQL statements prepared by a repository method call")
+                        .tags("repository", repository, "method", method.getName())
+                        .register(meterRegistry),
+                DistributionSummary.builder("repository.method.rows")
+                        .description("Rows returned or changed by a repository method call")
+                        .tags("repository", repository, "method", method.getName())
+                        .register(meterRegistry),
+                method.isAnnotationPresent(Modifying.class),
+                isScalar(method.getReturnType()));
+    }
+
+    /**
+     * @return the rows of the result, or -1 if they are not known
+     */
+    private static long rows(Object result, MethodMeters methodMeters) {
+        if (methodMeters.modifying())
+            return result instanceof Number changed ? changed.longValue() : -1;
+        if (methodMeters.scalar())
+            return -1;
+        if (result == null)
+            return 0;
+        if (result instanceof Collection<?> collection)
+            return collection.size();
+        if (result instanceof Optional<?> optional)
+            return optional.isPresent() ? 1 : 0;
+        if (result instanceof Slice<?> slice)
+            return slice.getNumberOfElements();
+        if (result instanceof BaseStream<?, ?>)
+            return -1;
+        return 1;
+    }
+
+    /**
+     * @return {@code true} for return types which are a value computed by the query, not a row
+     */
+    private static boolean isScalar(Class<?> type) {
+        return type.isPrimitive() || Number.class.isAssignableFrom(type) || type == Boolean.class
+                || CharSequence.class.isAssignableFrom(type) || type == Character.class || type.isEnum()
+                || Temporal.class.isAssignableFrom(type) || type == UUID.class;
+    }
+}
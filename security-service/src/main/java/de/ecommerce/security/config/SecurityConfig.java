@@ -1,5 +1,6 @@
 package de.ecommerce.security.config;
 
+import de.ecommerce.security.models.enums.Role;
 import de.ecommerce.security.services.CustomUserDetailsService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
@@ -9,6 +10,7 @@ import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
@@ -32,12 +34,14 @@ public class SecurityConfig {
 
     /**
      * This method creates a bean of AuthenticationManager using DaoAuthenticationProvider.
+     * Passwords stored with another BCrypt strength are rehashed after a successful login.
      * @return AuthenticationManager
      */
     @Bean
     public AuthenticationManager authenticationManager() {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
+        authProvider.setUserDetailsPasswordService(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder);
         return new ProviderManager(authProvider);
     }
@@ -56,8 +60,15 @@ public class SecurityConfig {
                 .authorizeHttpRequests(authorize ->
                         authorize
                                 .requestMatchers(HttpMethod.POST, "/auth/login", "/auth/register", "/auth/password/reset-password-request", "auth/password/change-password").permitAll()
-                                .requestMatchers(HttpMethod.GET, "/auth/password/activate-account").permitAll()
+                                // Authenticated by the refresh token cookie
+                                .requestMatchers(HttpMethod.POST, "/auth/token/refresh", "/auth/token/revoke").permitAll()
+                                // Reached through the gateway only, which checks the token and overwrites or removes the role header
+                                .requestMatchers(HttpMethod.POST, "/auth/register/batch").access((authentication, context) ->
+                                        new AuthorizationDecision(Role.ROLE_ADMIN.name().equals(context.getRequest().getHeader("X-User-Role"))))
+                                .requestMatchers(HttpMethod.GET, "/auth/activate-account").permitAll()
                                 .requestMatchers(HttpMethod.GET, "/auth/kafka/**").permitAll()
+                                // Probes only, the metrics stay behind authentication
+                                .requestMatchers(HttpMethod.GET, "/actuator/health", "/actuator/health/**").permitAll()
                                 .anyRequest().authenticated());
         return http.build();
     }
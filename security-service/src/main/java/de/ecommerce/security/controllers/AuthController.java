@@ -1,18 +1,30 @@
 package de.ecommerce.security.controllers;
 
+import de.ecommerce.security.dto.AuthTokens;
 import de.ecommerce.security.dto.LoginRequest;
 import de.ecommerce.security.dto.RegistrationDTO;
 import de.ecommerce.security.dto.ResetPassword;
 import de.ecommerce.security.dto.ResetPasswordRequest;
+import de.ecommerce.security.exceptions.HashingCapacityExceededException;
+import de.ecommerce.security.exceptions.InvalidRefreshTokenException;
+import de.ecommerce.security.services.AccessTokenRevocationService;
 import de.ecommerce.security.services.AuthService;
+import de.ecommerce.security.services.BatchRegistrationService;
 import de.ecommerce.security.services.BindingResultService;
+import de.ecommerce.security.services.RefreshTokenService;
+import de.ecommerce.security.token.RefreshTokenCookies;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+
 
 /**
  * Controller for handling authentication and registration requests.
@@ -25,7 +37,11 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
 
     private final AuthService authService;
+    private final BatchRegistrationService batchRegistrationService;
     private final BindingResultService bindingResultService;
+    private final RefreshTokenService refreshTokenService;
+    private final RefreshTokenCookies refreshTokenCookies;
+    private final AccessTokenRevocationService accessTokenRevocationService;
 
     /**
      * Registers a new user with the provided details.
@@ -48,27 +64,99 @@ public class AuthController {
         catch (IllegalArgumentException ex) {
             return ResponseEntity.badRequest().body(ex.getMessage());
         }
+        catch (HashingCapacityExceededException ex) {
+            return serviceBusy(ex);
+        }
 
         return ResponseEntity.ok("Activation link sent to your email. " +
                 "Please check your inbox and activate your account.");
     }
 
+    /**
+     * Registers many citizens at once, for registrar offices.
+     * <p>
+     * The body is a JSON array or newline delimited JSON of registrations and is read as a stream.
+     * Invalid rows do not stop the batch, they are reported with their position and reason.
+     * </p>
+     *
+     * @param body the registrations
+     * @return a response entity with the number of registered rows and the errors per row,
+     * or the error message if the body cannot be read
+     */
+    @PostMapping(value = "/register/batch",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<?> registerBatch(InputStream body) {
+        try {
+            return ResponseEntity.ok(batchRegistrationService.register(body));
+        }
+        catch (IOException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     /**
      * Logs in a user with the provided email and password.
      *
      * @param user the login request containing email and password
-     * @return a response entity with the login status and JWT token
+     * @return a response entity with the login status and JWT token, the refresh token is set as a cookie
      */
     @PostMapping("/login")
     public ResponseEntity<String> login(@RequestBody LoginRequest user) {
 
         try {
-            return ResponseEntity.ok(authService.findExistingUserByEmail(user));
+            return withTokens(authService.findExistingUserByEmail(user));
+        }
+        catch (HashingCapacityExceededException e) {
+            return serviceBusy(e);
         }
         catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
+
+    /**
+     * Issues a new JWT token for the refresh token cookie, without checking the password again.
+     * The refresh token is replaced by a new one with every call.
+     *
+     * @param refreshToken the refresh token cookie set by the login or the previous refresh
+     * @return a response entity with the new JWT token, or unauthorized if the client has to log in again
+     */
+    @PostMapping("/token/refresh")
+    public ResponseEntity<String> refreshToken(
+            @CookieValue(name = RefreshTokenCookies.NAME, required = false) String refreshToken) {
+        if (refreshToken == null || refreshToken.isBlank())
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Refresh token is missing");
+
+        try {
+            return withTokens(refreshTokenService.refresh(refreshToken));
+        } catch (InvalidRefreshTokenException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .header(HttpHeaders.SET_COOKIE, refreshTokenCookies.clear().toString())
+                    .body(e.getMessage());
+        }
+    }
+
+    /**
+     * Ends the session of the refresh token cookie, its refresh tokens can no longer be used.
+     * The access token sent along is revoked as well.
+     *
+     * @param refreshToken the refresh token cookie
+     * @param authorization the authorization header with the access token, if any
+     * @return a response entity without content
+     */
+    @PostMapping("/token/revoke")
+    public ResponseEntity<Void> revokeToken(
+            @CookieValue(name = RefreshTokenCookies.NAME, required = false) String refreshToken,
+            @RequestHeader(name = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        if (refreshToken != null && !refreshToken.isBlank())
+            refreshTokenService.revoke(refreshToken);
+        if (authorization != null && authorization.startsWith("Bearer "))
+            accessTokenRevocationService.revoke(authorization.substring(7));
+        return ResponseEntity.noContent()
+                .header(HttpHeaders.SET_COOKIE, refreshTokenCookies.clear().toString())
+                .build();
+    }
+
     /**
      * Activates a user account based on the provided activation token.
      * <p>
@@ -133,8 +221,26 @@ public class AuthController {
         try {
             authService.validateResetPasswordToken(request.getToken(), request.getPassword());
             return ResponseEntity.ok("Password has been successfully reset.");
+        } catch (HashingCapacityExceededException e) {
+            return serviceBusy(e);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
+
+    private ResponseEntity<String> withTokens(AuthTokens tokens) {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, refreshTokenCookies.create(tokens.refreshToken()).toString())
+                .body(tokens.accessToken());
+    }
+
+    /**
+     * Builds the response for requests rejected because the password hashing queue is full.
+     * The client should retry after a short delay.
+     */
+    private ResponseEntity<String> serviceBusy(HashingCapacityExceededException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ex.getMessage());
+    }
 }
\ No newline at end of file
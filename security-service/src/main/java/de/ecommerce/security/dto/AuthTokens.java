@@ -0,0 +1,12 @@
+package de.ecommerce.security.dto;
+
+/**
+ * Tokens issued by a login or a refresh.
+ *
+ * @param accessToken the signed JWT sent with every request
+ * @param refreshToken the opaque token to get the next access token with, sent back as an HttpOnly cookie
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+public record AuthTokens(String accessToken, String refreshToken) {
+}
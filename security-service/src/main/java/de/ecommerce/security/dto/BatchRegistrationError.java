@@ -0,0 +1,20 @@
+package de.ecommerce.security.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A row of a batch registration that could not be registered.
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@Getter
+@AllArgsConstructor
+public class BatchRegistrationError {
+    /**
+     * Position of the row in the request, starting at 0
+     */
+    private int row;
+    private String email;
+    private String message;
+}
@@ -0,0 +1,30 @@
+package de.ecommerce.security.dto;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a batch registration: the number of rows read and registered, and the error of every rejected row.
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@Getter
+public class BatchRegistrationResult {
+    private int total;
+    private int registered;
+    private final List<BatchRegistrationError> errors = new ArrayList<>();
+
+    public void addRows(int rows) {
+        total += rows;
+    }
+
+    public void addRegistered(int rows) {
+        registered += rows;
+    }
+
+    public void addError(int row, String email, String message) {
+        errors.add(new BatchRegistrationError(row, email, message));
+    }
+}
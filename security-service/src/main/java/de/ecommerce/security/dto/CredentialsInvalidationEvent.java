@@ -0,0 +1,17 @@
+package de.ecommerce.security.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Tells every security-service replica to drop the cached credentials of a user.
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CredentialsInvalidationEvent {
+    private String email;
+}
@@ -0,0 +1,33 @@
+package de.ecommerce.security.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Tells every gateway to reject access tokens before their expiry.
+ * <p>
+ * Either one token is revoked by its {@code jti}, or every token of a user issued before {@code issuedBefore}.
+ * The gateways forget the revocation at {@code expiresAt}, when the revoked tokens have expired anyway.
+ * Times are milliseconds since the epoch.
+ * </p>
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TokenRevocationEvent {
+    private String jti;
+    private String userId;
+    private Long issuedBefore;
+    private long expiresAt;
+
+    public static TokenRevocationEvent ofToken(String jti, long expiresAt) {
+        return new TokenRevocationEvent(jti, null, null, expiresAt);
+    }
+
+    public static TokenRevocationEvent ofUser(String userId, long issuedBefore, long expiresAt) {
+        return new TokenRevocationEvent(null, userId, issuedBefore, expiresAt);
+    }
+}
@@ -0,0 +1,13 @@
+package de.ecommerce.security.exceptions;
+
+/**
+ * Thrown when the password hashing queue is full and the request cannot be accepted.
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+public class HashingCapacityExceededException extends RuntimeException {
+
+    public HashingCapacityExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,13 @@
+package de.ecommerce.security.exceptions;
+
+/**
+ * Thrown when a refresh token is unknown, expired, revoked or reused. The client has to log in again.
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+public class InvalidRefreshTokenException extends RuntimeException {
+
+    public InvalidRefreshTokenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,39 @@
+package de.ecommerce.security.mappers;
+
+import de.ecommerce.security.dto.CitizenUserDTO;
+import de.ecommerce.security.dto.RegistrationDTO;
+import de.ecommerce.security.models.User;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingConstants;
+import org.mapstruct.ReportingPolicy;
+
+/**
+ * Maps between {@link User} and its DTOs with plain getters and setters generated at compile time.
+ * <p>
+ * An unmapped target property fails the build, a property that is deliberately not mapped has to be ignored here.
+ * {@code UserMapperTest} additionally checks that every field reaches the other side with its value.
+ * </p>
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@Mapper(componentModel = MappingConstants.ComponentModel.SPRING, unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface UserMapper {
+
+    /**
+     * @param registration the registration
+     * @return a new user with the raw password of the registration
+     */
+    @Mapping(target = "userId", ignore = true) // Assigned when the user is persisted
+    @Mapping(target = "creationDate", ignore = true) // Assigned when the user is persisted
+    @Mapping(target = "active", ignore = true)
+    @Mapping(target = "role", ignore = true)
+    @Mapping(target = "token", ignore = true)
+    User toUser(RegistrationDTO registration);
+
+    /**
+     * @param user the user
+     * @return the user as sent to the user-service, without password and token
+     */
+    CitizenUserDTO toCitizenUserDTO(User user);
+}
@@ -0,0 +1,71 @@
+package de.ecommerce.security.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Kafka event written in the transaction that caused it and published afterwards by the outbox relay.
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@Entity
+@Table(name = "outbox_events", indexes = @Index(name = "idx_outbox_events_sent_at", columnList = "sent_at, id"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "topic", nullable = false)
+    private String topic;
+
+    @Column(name = "message_key")
+    private String messageKey;
+
+    /**
+     * Type alias of the payload, sent as the type header the consumers map to their own classes.
+     */
+    @Column(name = "payload_type", nullable = false)
+    private String payloadType;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "text")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * Until when a relay is sending the event, set by the relay which claimed it.
+     */
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    @Column(name = "kafka_partition")
+    private Integer kafkaPartition;
+
+    @Column(name = "kafka_offset")
+    private Long kafkaOffset;
+
+    public OutboxEvent(String topic, String messageKey, String payloadType, String payload) {
+        this.topic = topic;
+        this.messageKey = messageKey;
+        this.payloadType = payloadType;
+        this.payload = payload;
+    }
+
+    @PrePersist
+    private void init() {
+        this.createdAt = LocalDateTime.now();
+    }
+}
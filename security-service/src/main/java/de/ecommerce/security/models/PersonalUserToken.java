@@ -5,37 +5,47 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 
 /**
+ * Activation or reset password token.
+ * The table is partitioned by {@code expiration_date}, see {@code schema.sql}.
  * @author EgorBusuioc
  * 14.06.2025
  */
 @Entity
-@Table(name = "personal_user_tokens")
+@Table(name = "personal_user_tokens", indexes = {
+        @Index(name = "idx_personal_user_tokens_token", columnList = "token"),
+        @Index(name = "idx_personal_user_tokens_expiration_date", columnList = "expiration_date")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 public class PersonalUserToken {
 
+    public static final Duration VALIDITY = Duration.ofHours(2);
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "personal_user_tokens_seq")
+    @SequenceGenerator(name = "personal_user_tokens_seq", sequenceName = "personal_user_tokens_seq", allocationSize = 50)
     @Column(name = "token_id")
     private Long tokenId;
 
-    @Column(name = "token", unique = true)
+    // Not unique in the database, a unique index on a partitioned table has to contain the partition key
+    @Column(name = "token")
     private String token;
 
     @OneToOne(mappedBy = "token")
     private User user;
 
-    @Column(name = "expiration_date")
+    @Column(name = "expiration_date", nullable = false)
     @Temporal(TemporalType.TIMESTAMP)
     private LocalDateTime expirationDate;
 
     @PrePersist
     private void setExpirationDate() {
-        this.expirationDate = LocalDateTime.now().plusHours(2); // Token valid for 2 hours
+        this.expirationDate = LocalDateTime.now().plus(VALIDITY); // Token valid for 2 hours
     }
 
     public PersonalUserToken(String token, User user) {
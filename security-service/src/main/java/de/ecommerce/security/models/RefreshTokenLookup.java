@@ -0,0 +1,19 @@
+package de.ecommerce.security.models;
+
+import de.ecommerce.security.models.enums.Role;
+
+import java.time.LocalDateTime;
+
+/**
+ * A refresh token together with the credentials of its user, loaded with one query.
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+public record RefreshTokenLookup(Long id, String familyId, LocalDateTime expiresAt, LocalDateTime usedAt,
+                                 LocalDateTime revokedAt, String userId, String email, Role role, boolean active) {
+
+    public UserCredentials toCredentials() {
+        // The password hash is not needed to sign an access token
+        return new UserCredentials(userId, email, null, role, active);
+    }
+}
@@ -0,0 +1,35 @@
+package de.ecommerce.security.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Last run of a scheduled job or job shard, shared by all replicas.
+ * Written by the {@link de.ecommerce.security.services.ScheduledJobLock}.
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@Entity
+@Table(name = "scheduled_job_runs")
+@Getter
+@Setter
+@NoArgsConstructor
+public class ScheduledJobRun {
+
+    @Id
+    @Column(name = "job_name")
+    private String jobName;
+
+    @Column(name = "last_started_at")
+    private LocalDateTime lastStartedAt;
+
+    @Column(name = "last_finished_at")
+    private LocalDateTime lastFinishedAt;
+
+    @Column(name = "locked_by")
+    private String lockedBy;
+}
@@ -0,0 +1,11 @@
+package de.ecommerce.security.models;
+
+import java.time.LocalDateTime;
+
+/**
+ * Id and expiration date of a {@link PersonalUserToken}, loaded to schedule its expiry.
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+public record TokenExpiry(Long tokenId, LocalDateTime expirationDate) {
+}
@@ -2,7 +2,7 @@ package de.ecommerce.security.models;
 
 import de.ecommerce.security.models.enums.Gender;
 import de.ecommerce.security.models.enums.Role;
-import de.huxhorn.sulky.ulid.ULID;
+import de.ecommerce.security.utils.MonotonicUlidGenerator;
 import jakarta.persistence.*;
 import lombok.*;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -20,7 +20,10 @@ import java.util.List;
  * 27.05.2025
  */
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_token_id", columnList = "token_id"),
+        @Index(name = "idx_users_inactive_creation_date", columnList = "is_active, creation_date")
+})
 @Getter
 @Setter
 @AllArgsConstructor
@@ -63,14 +66,14 @@ public class User implements UserDetails {
     @Transient
     private Gender gender;
 
-    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.EAGER, orphanRemoval = true)
-    @JoinColumn(name = "token_id")
+    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY, orphanRemoval = true)
+    // personal_user_tokens is partitioned, a foreign key would need the partition key as well
+    @JoinColumn(name = "token_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private PersonalUserToken token;
 
     @PrePersist
     public void init(){
-        ULID ulid = new ULID();
-        this.userId = ulid.nextULID();
+        this.userId = MonotonicUlidGenerator.shared().nextUlid();
         creationDate = LocalDateTime.now();
     }
 
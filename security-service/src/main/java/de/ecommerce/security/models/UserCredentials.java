@@ -0,0 +1,55 @@
+package de.ecommerce.security.models;
+
+import de.ecommerce.security.models.enums.Role;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable login credentials of a user, used for authentication and the JWT token.
+ * <p>
+ * Unlike the {@link User} entity it is detached from the persistence context, so it can be cached
+ * and shared between requests. It does not implement {@code CredentialsContainer}, so the
+ * password hash is not erased from the cached instance after authentication.
+ * </p>
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+public record UserCredentials(String userId, String email, String password, Role role, boolean active)
+        implements UserDetails {
+
+    public static UserCredentials from(User user) {
+        return new UserCredentials(user.getUserId(), user.getEmail(), user.getPassword(), user.getRole(), user.isActive());
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority(role.name()));
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return active;
+    }
+}
@@ -0,0 +1,42 @@
+package de.ecommerce.security.repositories;
+
+import de.ecommerce.security.models.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Locks the oldest undelivered events which are not claimed by a relay. Rows locked by another replica
+     * are skipped, so several relays can drain the outbox at the same time.
+     */
+    @Query(value = "select * from outbox_events where sent_at is null and (claimed_until is null or claimed_until < now()) " +
+            "order by id limit :batchSize for update skip locked",
+            nativeQuery = true)
+    List<OutboxEvent> lockUnclaimedBatch(@Param("batchSize") int batchSize);
+
+    /**
+     * Claims the events for a relay, other relays skip them until the claim expires.
+     */
+    @Modifying
+    @Query(value = "update outbox_events set claimed_until = now() + :seconds * interval '1 second' where id in :ids",
+            nativeQuery = true)
+    void claim(@Param("ids") List<Long> ids, @Param("seconds") long seconds);
+
+    @Modifying
+    @Query(value = "update outbox_events set claimed_until = null where id in :ids", nativeQuery = true)
+    void releaseClaim(@Param("ids") List<Long> ids);
+
+    @Modifying
+    @Query("delete from OutboxEvent e where e.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+}
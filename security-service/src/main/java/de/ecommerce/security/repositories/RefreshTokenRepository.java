@@ -0,0 +1,48 @@
+package de.ecommerce.security.repositories;
+
+import de.ecommerce.security.models.RefreshToken;
+import de.ecommerce.security.models.RefreshTokenLookup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    /**
+     * Finds the token by its hash together with the credentials of its user,
+     * one lookup of the unique hash index joined to the user by primary key.
+     */
+    @Query("select new de.ecommerce.security.models.RefreshTokenLookup(t.id, t.familyId, t.expiresAt, t.usedAt, " +
+            "t.revokedAt, u.userId, u.email, u.role, u.isActive) " +
+            "from RefreshToken t join User u on u.userId = t.userId where t.tokenHash = :tokenHash")
+    Optional<RefreshTokenLookup> findLookupByTokenHash(@Param("tokenHash") String tokenHash);
+
+    /**
+     * Marks the token as used unless it already is, so of two concurrent refreshes with the same token only one wins.
+     *
+     * @return 1 if the token was marked, 0 if it was already used or revoked
+     */
+    @Modifying
+    @Query("update RefreshToken t set t.usedAt = :now where t.id = :id and t.usedAt is null and t.revokedAt is null")
+    int markUsed(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update RefreshToken t set t.revokedAt = :now where t.familyId = :familyId and t.revokedAt is null")
+    int revokeFamily(@Param("familyId") String familyId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update RefreshToken t set t.revokedAt = :now where t.userId = :userId and t.revokedAt is null")
+    int revokeAllOfUser(@Param("userId") String userId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("delete from RefreshToken t where t.expiresAt < :before")
+    int deleteExpiredBefore(@Param("before") LocalDateTime before);
+}
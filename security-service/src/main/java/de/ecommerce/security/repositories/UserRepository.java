@@ -2,9 +2,20 @@ package de.ecommerce.security.repositories;
 
 import de.ecommerce.security.models.PersonalUserToken;
 import de.ecommerce.security.models.User;
+import de.ecommerce.security.models.UserCredentials;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * @author EgorBusuioc
@@ -12,5 +23,45 @@ import java.util.Optional;
  */
 public interface UserRepository extends JpaRepository<User, String> {
     Optional<User> findByEmail(String email);
+    boolean existsByEmail(String email);
+
+    @Query("select u.email from User u where u.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
     Optional<User> findByToken(PersonalUserToken token);
+
+    /**
+     * Loads only the columns needed for login, without hydrating the {@link User} entity and its token.
+     */
+    @Query("select new de.ecommerce.security.models.UserCredentials(u.userId, u.email, u.password, u.role, u.isActive) " +
+            "from User u where u.email = :email")
+    Optional<UserCredentials> findCredentialsByEmail(@Param("email") String email);
+
+    /**
+     * Streams the emails of all users in fetch-size chunks. Must be called inside a transaction and closed.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select u.email from User u")
+    Stream<String> streamAllEmails();
+
+    /**
+     * Selects inactive users of one shard, the shards split the users by the hash of their id.
+     */
+    @Query(value = "select user_id from users where is_active = false and creation_date < :createdBefore " +
+            "and mod(hashtext(user_id)::bigint + 2147483648, :shardCount) = :shardIndex limit :limit", nativeQuery = true)
+    List<String> findInactiveUserIds(@Param("createdBefore") LocalDateTime createdBefore, @Param("shardIndex") int shardIndex,
+                                     @Param("shardCount") int shardCount, @Param("limit") int limit);
+
+    @Query(value = "select email from users where user_id in (:userIds)", nativeQuery = true)
+    List<String> findEmailsByUserIds(@Param("userIds") Collection<String> userIds);
+
+    @Query(value = "select token_id from users where user_id in (:userIds) and token_id is not null", nativeQuery = true)
+    List<Long> findTokenIdsByUserIds(@Param("userIds") Collection<String> userIds);
+
+    @Modifying
+    @Query(value = "update users set token_id = null where token_id in (:tokenIds)", nativeQuery = true)
+    int detachTokens(@Param("tokenIds") Collection<Long> tokenIds);
+
+    @Modifying
+    @Query(value = "delete from users where user_id in (:userIds)", nativeQuery = true)
+    int deleteByUserIds(@Param("userIds") Collection<String> userIds);
 }
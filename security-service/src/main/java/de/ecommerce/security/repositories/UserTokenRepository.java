@@ -1,9 +1,20 @@
 package de.ecommerce.security.repositories;
 
 import de.ecommerce.security.models.PersonalUserToken;
+import de.ecommerce.security.models.TokenExpiry;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * @author EgorBusuioc
@@ -11,4 +22,21 @@ import java.util.Optional;
  */
 public interface UserTokenRepository extends JpaRepository<PersonalUserToken, Long> {
     Optional<PersonalUserToken> findByToken(String token);
+
+    /**
+     * Streams the expiration dates of the tokens expiring after {@code since}, as one range scan
+     * of the expiration date index. Must be called inside a transaction and closed.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new de.ecommerce.security.models.TokenExpiry(t.tokenId, t.expirationDate) " +
+            "from PersonalUserToken t where t.expirationDate >= :since")
+    Stream<TokenExpiry> streamExpiriesSince(@Param("since") LocalDateTime since);
+
+    @Query(value = "select token_id from personal_user_tokens where token_id in (:tokenIds) and expiration_date <= :now",
+            nativeQuery = true)
+    List<Long> findExpiredTokenIds(@Param("tokenIds") Collection<Long> tokenIds, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("delete from PersonalUserToken t where t.tokenId in :tokenIds")
+    int deleteByTokenIds(@Param("tokenIds") Collection<Long> tokenIds);
 }
@@ -0,0 +1,93 @@
+package de.ecommerce.security.services;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.exceptions.JWTDecodeException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import de.ecommerce.security.dto.TokenRevocationEvent;
+import de.ecommerce.security.token.JWTUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+
+/**
+ * Revokes access tokens before their expiry by publishing {@link TokenRevocationEvent}s through the outbox.
+ * <p>
+ * The gateways read the compacted {@value #TOPIC} topic and reject revoked tokens. The topic is keyed by the
+ * revoked token or user, so a replayed topic holds one event per key, and events are deleted by time once the
+ * tokens they revoke have expired.
+ * </p>
+ * <p>
+ * {@code iat} has whole seconds, so the gateways revoke every token of the user issued up to the end of the second
+ * of the revocation. New tokens of the user get an {@code iat} from the next second on, see {@link #issuableFrom(String)}.
+ * Only this replica knows about the revocation; a token issued on another replica within that second is rejected,
+ * and the user has to log in again.
+ * </p>
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class AccessTokenRevocationService {
+
+    public static final String TOPIC = "revoked-tokens";
+
+    private final OutboxService outboxService;
+    // userId -> start of the second after the revocation, kept until that second has passed
+    private final Cache<String, Long> recentUserRevocations = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofSeconds(2))
+            .build();
+
+    /**
+     * Revokes every access token of the user issued until now, published when the current transaction commits.
+     *
+     * @param userId the id of the user
+     */
+    @Transactional
+    public void revokeAllOfUser(String userId) {
+        long now = System.currentTimeMillis();
+        // Every token issued until now has expired one token lifetime later
+        long expiresAt = now + JWTUtils.TOKEN_LIFETIME.toMillis();
+        recentUserRevocations.asMap().merge(userId, (now + 999) / 1000 * 1000, Math::max);
+        outboxService.enqueue(TOPIC, "user:" + userId, TokenRevocationEvent.ofUser(userId, now, expiresAt));
+        log.info("Access tokens of user {} revoked", userId);
+    }
+
+    /**
+     * @param userId the id of the user
+     * @return the earliest {@code iat} in millis a new access token of the user may have, 0 if there is no limit
+     */
+    public long issuableFrom(String userId) {
+        Long issuableFrom = recentUserRevocations.getIfPresent(userId);
+        return issuableFrom != null ? issuableFrom : 0;
+    }
+
+    /**
+     * Revokes one access token. Tokens without an id, expired or malformed tokens are ignored.
+     * The signature is not checked, revoking a token requires knowing it.
+     *
+     * @param accessToken the access token
+     */
+    @Transactional
+    public void revoke(String accessToken) {
+        DecodedJWT token;
+        try {
+            token = JWT.decode(accessToken);
+        } catch (JWTDecodeException e) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        if (token.getId() == null || token.getExpiresAt() == null || token.getExpiresAt().getTime() <= now)
+            return;
+
+        // An unverified expiry is never trusted beyond the lifetime of a real token
+        long expiresAt = Math.min(token.getExpiresAt().getTime(), now + JWTUtils.TOKEN_LIFETIME.toMillis());
+        outboxService.enqueue(TOPIC, "jti:" + token.getId(), TokenRevocationEvent.ofToken(token.getId(), expiresAt));
+    }
+}
@@ -1,21 +1,23 @@
 package de.ecommerce.security.services;
 
+import de.ecommerce.security.dto.AuthTokens;
 import de.ecommerce.security.dto.CitizenUserDTO;
 import de.ecommerce.security.dto.EmailRequest;
 import de.ecommerce.security.dto.LoginRequest;
 import de.ecommerce.security.dto.RegistrationDTO;
 import de.ecommerce.security.dto.enums.RequestType;
+import de.ecommerce.security.exceptions.HashingCapacityExceededException;
+import de.ecommerce.security.mappers.UserMapper;
 import de.ecommerce.security.models.PersonalUserToken;
 import de.ecommerce.security.models.User;
+import de.ecommerce.security.models.UserCredentials;
 import de.ecommerce.security.models.enums.Role;
 import de.ecommerce.security.repositories.UserRepository;
 import de.ecommerce.security.repositories.UserTokenRepository;
 import de.ecommerce.security.token.JWTUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.support.SendResult;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -25,7 +27,6 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
 
 /**
  * @author EgorBusuioc
@@ -42,14 +43,21 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JWTUtils jwtUtils;
-    private final KafkaTemplate<String, Object> kafkaTemplate;
-    private final ModelMapper modelMapper;
+    private final OutboxService outboxService;
+    private final UserMapper userMapper;
+    private final UserCredentialsCache credentialsCache;
+    private final RegisteredEmailFilter registeredEmailFilter;
+    private final TokenExpiryScheduler tokenExpiryScheduler;
+    private final RefreshTokenService refreshTokenService;
+    private final AccessTokenRevocationService accessTokenRevocationService;
 
     /**
      * Registers a new user in the system.
      * <p>
      * The method first checks if the email is already in use. If not, it sets the user's
      * role to {@code ROLE_USER}, encrypts the password, and persists the user to the database.
+     * The lookup is skipped if the {@link RegisteredEmailFilter} knows that the email is not registered;
+     * the unique constraint on the email catches registrations that race each other.
      * </p>
      *
      * @param userDTO the user object to be registered
@@ -57,16 +65,23 @@ public class AuthService {
      */
     @Transactional
     public void registerNewUser(RegistrationDTO userDTO) throws IllegalArgumentException{
-        if (userRepository.findByEmail(userDTO.getEmail()).isPresent())
+        if (registeredEmailFilter.mightBeRegistered(userDTO.getEmail())
+                && userRepository.existsByEmail(userDTO.getEmail()))
             throw new IllegalArgumentException("A user with this email already exists.");
 
-        User user = modelMapper.map(userDTO, User.class);
+        User user = userMapper.toUser(userDTO);
         user.setPassword(passwordEncoder.encode(user.getPassword())); // Encoding the password
-        userRepository.save(user); // Saving the user into the database
+        try {
+            userRepository.saveAndFlush(user); // Saving the user into the database
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Concurrent registration with email {} rejected by the unique constraint", user.getEmail());
+            throw new IllegalArgumentException("A user with this email already exists.");
+        }
+        registeredEmailFilter.add(user.getEmail());
         log.info("User created: Email: {}", user.getEmail());
         sendActivationLink(user);
         user.setRole(Role.CITIZEN);
-        sendUserToKafka(modelMapper.map(user, CitizenUserDTO.class));
+        sendUserToKafka(userMapper.toCitizenUserDTO(user));
         log.info("User's activation link has been sent to: {}", user.getEmail());
     }
 
@@ -74,23 +89,26 @@ public class AuthService {
      * Authenticates an existing user using their email and password.
      * <p>
      * The method uses the {@code AuthenticationManager} to authenticate the user. If successful,
-     * it generates a JWT token for the user and returns it.
+     * it generates a JWT token for the user and starts a new refresh token family for the session.
      * </p>
      *
      * @param loginRequest the login request containing email and password
-     * @return a JWT token if authentication is successful
+     * @return a JWT token and a refresh token if authentication is successful
      * @throws IllegalArgumentException if authentication fails
+     * @throws HashingCapacityExceededException if the password hashing queue is full
      */
-    public String findExistingUserByEmail(LoginRequest loginRequest){
+    public AuthTokens findExistingUserByEmail(LoginRequest loginRequest){
         try {
-            User user = (User) authenticationManager.authenticate(
+            UserCredentials user = (UserCredentials) authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(loginRequest.getEmail(), loginRequest.getPassword())
             ).getPrincipal();
 
             log.info("Authentication successful for user: {}", loginRequest.getEmail());
             log.info("User have been found: Email: {}", loginRequest.getEmail());
             log.info("JWT token generating...");
-            return jwtUtils.generateToken(user);
+            return new AuthTokens(jwtUtils.generateToken(user), refreshTokenService.issue(user));
+        } catch (HashingCapacityExceededException e) {
+            throw e;
         } catch (Exception e) {
             log.warn("Authentication failed for user: {}", loginRequest.getEmail());
             throw new IllegalArgumentException("Invalid email or password");
@@ -101,7 +119,7 @@ public class AuthService {
      * Handles a password reset request for a user.
      * <p>
      * This method checks if the user exists based on the provided email. If the user already has an activation
-     * or reset token, an exception is thrown. Otherwise, a new reset password token is generated and a reset
+     * or reset token that has not expired, an exception is thrown. Otherwise, a new reset password token is generated and a reset
      * password link is sent to the user's email.
      * </p>
      *
@@ -114,7 +132,8 @@ public class AuthService {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User with this email does not exist"));
 
-        if (user.getToken() != null) {
+        // An expired token is deleted shortly after its expiry, until then it is simply replaced
+        if (user.getToken() != null && !isTokenExpired(user.getToken())) {
             log.error("User with email {} already has an activation or reset token", email);
             throw new IllegalStateException("User already has an activation token.");
         }
@@ -125,7 +144,7 @@ public class AuthService {
     /**
      * Sends a reset password link to the user.
      * <p>
-     * This method creates a reset password token, saves it in the database, and sends an event to Kafka
+     * This method creates a reset password token, saves it in the database, and adds an event to the outbox
      * to deliver the reset password link to the user's email.
      * </p>
      *
@@ -137,11 +156,12 @@ public class AuthService {
         PersonalUserToken personalUserToken = new PersonalUserToken(resetPasswordToken, user);
         user.setToken(personalUserToken);
         userRepository.save(user);
+        tokenExpiryScheduler.scheduleTokenOf(user);
 
         log.info("Reset password token generated and saved for user: {}", user.getEmail());
 
-        CompletableFuture<SendResult<String, Object>> future = kafkaTemplate.send("email-events", new EmailRequest(user.getEmail(), personalUserToken.getToken(), RequestType.RESET_PASSWORD));
-        tryToSendMessageToKafka(future);
+        outboxService.enqueue("email-events", user.getEmail(),
+                new EmailRequest(user.getEmail(), personalUserToken.getToken(), RequestType.RESET_PASSWORD));
         log.info("Reset password link sent to user: {}", user.getEmail());
     }
 
@@ -175,6 +195,10 @@ public class AuthService {
         user.setPassword(passwordEncoder.encode(password)); // Encoding the new password
         user.setToken(null);
         userRepository.save(user);
+        credentialsCache.invalidate(user.getEmail());
+        // Sessions opened with the old password end, the access tokens are rejected by the gateways
+        refreshTokenService.revokeAll(user.getUserId());
+        accessTokenRevocationService.revokeAllOfUser(user.getUserId());
 
         log.info("User - {} changed his password.", user.getEmail());
     }
@@ -185,64 +209,44 @@ public class AuthService {
         PersonalUserToken personalUserToken = new PersonalUserToken(token, user);
         user.setToken(personalUserToken);
         userRepository.save(user);
+        tokenExpiryScheduler.scheduleTokenOf(user);
 
         log.info("Token generated and saved for user: {}", user.getEmail());
 
-        CompletableFuture<SendResult<String, Object>> future = kafkaTemplate.send("email-events",  new EmailRequest(user.getEmail(), personalUserToken.getToken(), RequestType.NOT_EXISTING_USER));
-        tryToSendMessageToKafka(future);
+        outboxService.enqueue("email-events", user.getEmail(),
+                new EmailRequest(user.getEmail(), personalUserToken.getToken(), RequestType.NOT_EXISTING_USER));
         log.info("Activation link sent to user: {}", user.getEmail());
     }
 
     /**
      * Sends an activation link to the user.
      * <p>
-     * This method generates a unique activation token, saves it in the database, and sends an event to Kafka
+     * This method generates a unique activation token, saves it in the database, and adds an event to the outbox
      * to deliver the activation link to the user's email.
      * </p>
      *
      * @param user the user object to whom the activation link will be sent
      */
     private void sendUserToKafka(CitizenUserDTO user) {
-        CompletableFuture<SendResult<String, Object>> future = kafkaTemplate.send("user-sending-events", user);
-        tryToSendMessageToKafka(future);
-        log.info("User has been sent to Kafka topic: {}", user.getEmail());
+        outboxService.enqueue("user-sending-events", user.getUserId(), user);
+        log.info("User has been added to the outbox: {}", user.getEmail());
     }
 
     /**
      * Sends a thank-you email to the user.
      * <p>
-     * This method sends an event to Kafka to deliver a thank-you email to the user's email address
+     * This method adds an event to the outbox to deliver a thank-you email to the user's email address
      * after the user has been successfully activated.
      * </p>
      *
      * @param user the user object to whom the thank-you email will be sent
      */
     protected void sendThanksEmail(User user) {
-        CompletableFuture<SendResult<String, Object>> future = kafkaTemplate.send("email-events",  new EmailRequest(user.getEmail(), null, RequestType.ALREADY_ACTIVATED_USER));
-        tryToSendMessageToKafka(future);
+        outboxService.enqueue("email-events", user.getEmail(),
+                new EmailRequest(user.getEmail(), null, RequestType.ALREADY_ACTIVATED_USER));
         log.info("Thanking Email was sent to User: {}", user.getEmail());
     }
 
-    /**
-     * Sends a thank-you email to the user.
-     * <p>
-     * This method sends an event to Kafka to deliver a thank-you email to the user's email address
-     * after the user has been successfully activated.
-     * </p>
-     *
-     * @param future the user object to whom the thank-you email will be sent
-     */
-    private void tryToSendMessageToKafka(CompletableFuture<SendResult<String, Object>> future) {
-        future.whenComplete((result, ex) -> {
-            if (ex != null) {
-                log.error("Failed to send user to Kafka topic: {}", ex.getMessage());
-                throw new RuntimeException("Failed to send user to Kafka topic");
-            } else {
-                log.info("User sent to Kafka topic successfully: {}", result.getRecordMetadata().offset());
-            }
-        });
-    }
-
     /**
      * Validates the activation token and activates the user.
      * <p>
@@ -270,6 +274,7 @@ public class AuthService {
         user.setActive(true); // Activate the user
         user.setToken(null);
         userRepository.save(user);
+        credentialsCache.invalidate(user.getEmail());
         log.info("User has been activated: {}", user.getEmail());
         sendThanksEmail(user);
 
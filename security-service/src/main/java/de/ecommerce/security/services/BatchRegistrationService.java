@@ -0,0 +1,294 @@
+package de.ecommerce.security.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.ecommerce.security.config.BoundedPasswordEncoder;
+import de.ecommerce.security.dto.BatchRegistrationResult;
+import de.ecommerce.security.dto.CitizenUserDTO;
+import de.ecommerce.security.dto.EmailRequest;
+import de.ecommerce.security.dto.RegistrationDTO;
+import de.ecommerce.security.dto.enums.RequestType;
+import de.ecommerce.security.models.PersonalUserToken;
+import de.ecommerce.security.models.enums.Role;
+import de.ecommerce.security.repositories.UserRepository;
+import de.ecommerce.security.utils.MonotonicUlidGenerator;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Registers many citizens at once, for the bulk onboarding of registrar offices.
+ * <p>
+ * The request body is read as a stream, either a JSON array or newline delimited JSON, and processed in chunks of
+ * {@code registration.batch.chunk-size} rows, so memory stays bounded by the chunk size. Per chunk, every row is
+ * validated, existing emails are looked up with one query, the passwords are hashed in parallel on the password
+ * hashing pool and the users, their activation tokens and their events are inserted in one transaction. The users
+ * are inserted with one statement which returns the inserted emails, so a row whose email was registered
+ * concurrently is reported per row; the tokens and events are inserted with JDBC batches. The events are published by the outbox relay in its batches. Rows that cannot be registered are
+ * reported with their position and reason, the other rows of the chunk are registered anyway.
+ * </p>
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@Service
+@Slf4j
+public class BatchRegistrationService {
+
+    // Returns the email of every inserted row, a row whose email is taken is skipped by "on conflict do nothing"
+    private static final String INSERT_USERS =
+            "insert into users (user_id, email, password, is_active, creation_date, role, token_id) " +
+            "select new_user.user_id, new_user.email, new_user.password, false, ?, ?, new_user.token_id " +
+            "from unnest(?::varchar[], ?::varchar[], ?::varchar[], ?::bigint[]) as new_user (user_id, email, password, token_id) " +
+            "on conflict (email) do nothing returning email";
+    private static final String INSERT_TOKEN =
+            "insert into personal_user_tokens (token_id, token, expiration_date) values (?, ?, ?)";
+    private static final String NEXT_TOKEN_ID_BLOCKS =
+            "select nextval('personal_user_tokens_seq') from generate_series(1, ?)";
+
+    // Increment of personal_user_tokens_seq, every value reserves the block of ids ending with it, like Hibernate does
+    private static final int TOKEN_ID_BLOCK_SIZE = 50;
+
+    private record Row(int index, RegistrationDTO registration) {
+    }
+
+    private record NewUser(Row row, String userId, String passwordHash, Long tokenId, String token,
+                           LocalDateTime creationDate, LocalDateTime expirationDate) {
+    }
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final UserRepository userRepository;
+    private final BoundedPasswordEncoder passwordEncoder;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxService outboxService;
+    private final RegisteredEmailFilter registeredEmailFilter;
+    private final TokenExpiryScheduler tokenExpiryScheduler;
+    private final int chunkSize;
+    private final int maxRows;
+    private final int hashingParallelism;
+
+    public BatchRegistrationService(ObjectMapper objectMapper,
+                                    Validator validator,
+                                    UserRepository userRepository,
+                                    BoundedPasswordEncoder passwordEncoder,
+                                    JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    OutboxService outboxService,
+                                    RegisteredEmailFilter registeredEmailFilter,
+                                    TokenExpiryScheduler tokenExpiryScheduler,
+                                    PasswordHashingExecutor hashingExecutor,
+                                    @Value("${registration.batch.chunk-size:500}") int chunkSize,
+                                    @Value("${registration.batch.max-rows:10000}") int maxRows,
+                                    @Value("${registration.batch.hashing-parallelism:0}") int hashingParallelism) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.outboxService = outboxService;
+        this.registeredEmailFilter = registeredEmailFilter;
+        this.tokenExpiryScheduler = tokenExpiryScheduler;
+        this.chunkSize = chunkSize;
+        this.maxRows = maxRows;
+        // By default half of the hashing threads, the other half stays free for logins
+        this.hashingParallelism = hashingParallelism > 0
+                ? hashingParallelism
+                : Math.max(1, hashingExecutor.getPoolSize() / 2);
+    }
+
+    /**
+     * Registers the citizens of the request body.
+     *
+     * @param body a JSON array or newline delimited JSON of {@link RegistrationDTO}
+     * @return the number of read and registered rows and the errors of the rejected rows
+     * @throws IOException if the body cannot be read
+     */
+    public BatchRegistrationResult register(InputStream body) throws IOException {
+        BatchRegistrationResult result = new BatchRegistrationResult();
+        Set<String> emailsInBatch = new HashSet<>();
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        int index = 0;
+
+        try (MappingIterator<RegistrationDTO> entries = objectMapper.readerFor(RegistrationDTO.class).readValues(body)) {
+            while (true) {
+                RegistrationDTO registration;
+                try {
+                    if (!entries.hasNextValue())
+                        break;
+                    if (index >= maxRows) {
+                        result.addError(index, null, "The batch is limited to " + maxRows + " rows, the remaining rows were not read.");
+                        break;
+                    }
+                    registration = entries.nextValue();
+                } catch (JsonMappingException e) {
+                    // The iterator skips the invalid entry and continues with the next one
+                    result.addRows(1);
+                    result.addError(index++, null, "Invalid entry: " + e.getOriginalMessage());
+                    continue;
+                } catch (JsonProcessingException e) {
+                    result.addError(index, null, "Malformed JSON, the remaining rows were not read: " + e.getOriginalMessage());
+                    break;
+                }
+
+                chunk.add(new Row(index++, registration));
+                if (chunk.size() == chunkSize) {
+                    registerChunk(chunk, emailsInBatch, result);
+                    chunk.clear();
+                }
+            }
+        }
+
+        if (!chunk.isEmpty())
+            registerChunk(chunk, emailsInBatch, result);
+
+        log.info("Batch registration: {} of {} rows registered, {} errors",
+                result.getRegistered(), result.getTotal(), result.getErrors().size());
+        return result;
+    }
+
+    private void registerChunk(List<Row> chunk, Set<String> emailsInBatch, BatchRegistrationResult result) {
+        result.addRows(chunk.size());
+
+        List<Row> valid = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            RegistrationDTO registration = row.registration();
+            Set<ConstraintViolation<RegistrationDTO>> violations = validator.validate(registration);
+            if (!violations.isEmpty()) {
+                result.addError(row.index(), registration.getEmail(), violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("\n")));
+            } else if (!emailsInBatch.add(registration.getEmail())) {
+                result.addError(row.index(), registration.getEmail(), "The email appears more than once in the batch.");
+            } else {
+                valid.add(row);
+            }
+        }
+
+        List<String> emailsToCheck = valid.stream()
+                .map(row -> row.registration().getEmail())
+                .filter(registeredEmailFilter::mightBeRegistered)
+                .toList();
+        Set<String> existingEmails = emailsToCheck.isEmpty()
+                ? Set.of()
+                : new HashSet<>(userRepository.findExistingEmails(emailsToCheck));
+        valid.removeIf(row -> {
+            boolean exists = existingEmails.contains(row.registration().getEmail());
+            if (exists)
+                result.addError(row.index(), row.registration().getEmail(), "A user with this email already exists.");
+            return exists;
+        });
+        if (valid.isEmpty())
+            return;
+
+        List<String> passwordHashes = passwordEncoder.encodeAll(
+                valid.stream().map(row -> row.registration().getPassword()).toList(), hashingParallelism);
+
+        List<NewUser> inserted;
+        try {
+            inserted = transactionTemplate.execute(status -> insert(valid, passwordHashes, result));
+        } catch (DataAccessException e) {
+            log.error("Failed to insert a chunk of {} batch registrations: {}", valid.size(), e.getMessage());
+            valid.forEach(row -> result.addError(row.index(), row.registration().getEmail(),
+                    "Registration failed, please retry this row."));
+            return;
+        }
+        for (NewUser user : inserted) {
+            registeredEmailFilter.add(user.row().registration().getEmail());
+            tokenExpiryScheduler.schedule(user.tokenId(), user.expirationDate());
+        }
+        result.addRegistered(inserted.size());
+    }
+
+    private List<NewUser> insert(List<Row> rows, List<String> passwordHashes, BatchRegistrationResult result) {
+        List<Long> tokenIds = allocateTokenIds(rows.size());
+        LocalDateTime now = LocalDateTime.now();
+        List<NewUser> users = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            users.add(new NewUser(rows.get(i), MonotonicUlidGenerator.shared().nextUlid(), passwordHashes.get(i),
+                    tokenIds.get(i), UUID.randomUUID().toString(), now, now.plus(PersonalUserToken.VALIDITY)));
+        }
+
+        String[] userIds = new String[users.size()];
+        String[] emails = new String[users.size()];
+        String[] hashes = new String[users.size()];
+        Long[] userTokenIds = new Long[users.size()];
+        for (int i = 0; i < users.size(); i++) {
+            NewUser user = users.get(i);
+            userIds[i] = user.userId();
+            emails[i] = user.row().registration().getEmail();
+            hashes[i] = user.passwordHash();
+            userTokenIds[i] = user.tokenId();
+        }
+        Set<String> insertedEmails = new HashSet<>(jdbcTemplate.queryForList(INSERT_USERS, String.class,
+                Timestamp.valueOf(now), Role.CITIZEN.name(), userIds, emails, hashes, userTokenIds));
+
+        // An email registered concurrently since the lookup is not returned
+        List<NewUser> inserted = new ArrayList<>(insertedEmails.size());
+        for (NewUser user : users) {
+            if (insertedEmails.contains(user.row().registration().getEmail()))
+                inserted.add(user);
+            else
+                result.addError(user.row().index(), user.row().registration().getEmail(), "A user with this email already exists.");
+        }
+        if (inserted.isEmpty())
+            return inserted;
+
+        jdbcTemplate.batchUpdate(INSERT_TOKEN, inserted, inserted.size(), (statement, user) -> {
+            statement.setLong(1, user.tokenId());
+            statement.setString(2, user.token());
+            statement.setTimestamp(3, Timestamp.valueOf(user.expirationDate()));
+        });
+
+        List<OutboxService.Message> messages = new ArrayList<>(inserted.size() * 2);
+        for (NewUser user : inserted) {
+            RegistrationDTO registration = user.row().registration();
+            messages.add(new OutboxService.Message("email-events", registration.getEmail(),
+                    new EmailRequest(registration.getEmail(), user.token(), RequestType.NOT_EXISTING_USER)));
+            messages.add(new OutboxService.Message("user-sending-events", user.userId(),
+                    new CitizenUserDTO(user.userId(), registration.getEmail(), registration.getFirstName(),
+                            registration.getLastName(), registration.getIdentificationNumber(),
+                            registration.getBirthDate(), false, user.creationDate(), Role.CITIZEN,
+                            registration.getGender())));
+        }
+        outboxService.enqueueAll(messages);
+        return inserted;
+    }
+
+    /**
+     * Reserves token ids from the sequence with one query. Every sequence value reserves the block of
+     * {@value #TOKEN_ID_BLOCK_SIZE} ids ending with it, the same ids Hibernate takes for the value.
+     */
+    private List<Long> allocateTokenIds(int count) {
+        List<Long> ids = new ArrayList<>(count);
+        while (ids.size() < count) {
+            int blocks = (count - ids.size() + TOKEN_ID_BLOCK_SIZE - 1) / TOKEN_ID_BLOCK_SIZE;
+            for (Long blockEnd : jdbcTemplate.queryForList(NEXT_TOKEN_ID_BLOCKS, Long.class, blocks)) {
+                for (long id = Math.max(1, blockEnd - TOKEN_ID_BLOCK_SIZE + 1); id <= blockEnd && ids.size() < count; id++)
+                    ids.add(id);
+            }
+        }
+        return ids;
+    }
+}
@@ -1,11 +1,17 @@
 package de.ecommerce.security.services;
 
+import de.ecommerce.security.models.User;
+import de.ecommerce.security.models.UserCredentials;
 import de.ecommerce.security.repositories.UserRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * @author EgorBusuioc
@@ -13,14 +19,55 @@ import org.springframework.stereotype.Service;
  */
 @Service
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+@Slf4j
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final UserCredentialsCache credentialsCache;
+    private final PrimaryPinning primaryPinning;
 
+    /**
+     * Loads the login credentials of the user, from the {@link UserCredentialsCache} if present.
+     * <p>
+     * Recently changed users are loaded from the primary database. This is the first statement of the
+     * read-only login transaction, so its connection is fetched inside the pinning scope.
+     * </p>
+     */
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
 
-        return (UserDetails) userRepository.findByEmail(email)
+        UserCredentials credentials = credentialsCache.get(email, key -> {
+            try (var scope = primaryPinning.routeFor(key)) {
+                return userRepository.findCredentialsByEmail(key).orElse(null);
+            }
+        });
+
+        if (credentials == null)
+            throw new UsernameNotFoundException("User with this email does not exist");
+        return credentials;
+    }
+
+    /**
+     * Stores the password rehashed with the current BCrypt strength.
+     * <p>
+     * Called by the {@code DaoAuthenticationProvider} after a successful login when the stored hash
+     * has another strength. Login runs in a read-only transaction, so the update needs its own one.
+     * </p>
+     *
+     * @param user the authenticated user
+     * @param newPassword the new encoded password
+     * @return the credentials with the new password
+     */
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        User existingUser = userRepository.findByEmail(user.getUsername())
                 .orElseThrow(() -> new UsernameNotFoundException("User with this email does not exist"));
+
+        existingUser.setPassword(newPassword);
+        userRepository.save(existingUser);
+        credentialsCache.invalidate(existingUser.getEmail());
+        log.info("Password hash of user {} has been upgraded", existingUser.getEmail());
+        return UserCredentials.from(existingUser);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,206 @@
+package de.ecommerce.security.services;
+
+import de.ecommerce.security.models.OutboxEvent;
+import de.ecommerce.security.repositories.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.kafka.support.mapping.AbstractJavaTypeMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publishes the events of the outbox table to Kafka.
+ * <p>
+ * The relay claims a batch of undelivered events for {@code outbox.relay.claim-timeout} in a short transaction,
+ * so no row lock is held while it waits for Kafka. It then sends all of them, flushes the producer once and waits
+ * for the acknowledgements. In a second short transaction the delivered events are marked with their partition
+ * and offset and the claim of the others is released, they are retried on the next run. A relay which dies in
+ * between leaves its claim to expire, the events are then sent again. Batches are drained until the outbox is
+ * empty. Delivered events are deleted after {@code outbox.retention}.
+ * </p>
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@Service
+@Slf4j
+public class OutboxRelay {
+
+    private static final String MARK_SENT =
+            "update outbox_events set sent_at = ?, kafka_partition = ?, kafka_offset = ? where id = ?";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration sendTimeout;
+    private final Duration claimTimeout;
+    private final Duration retention;
+
+    private final Counter sentEvents;
+    private final Counter failedEvents;
+    private final Timer batchTimer;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       JdbcTemplate jdbcTemplate,
+                       @Qualifier("outboxKafkaTemplate") KafkaTemplate<String, String> kafkaTemplate,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${outbox.relay.batch-size:500}") int batchSize,
+                       @Value("${outbox.relay.send-timeout:30s}") Duration sendTimeout,
+                       @Value("${outbox.relay.claim-timeout:2m}") Duration claimTimeout,
+                       @Value("${outbox.retention:7d}") Duration retention,
+                       MeterRegistry meterRegistry) {
+        // A claim expiring while its relay still waits for Kafka would let another relay send the batch again
+        if (claimTimeout.compareTo(sendTimeout.multipliedBy(2)) < 0)
+            throw new IllegalStateException("outbox.relay.claim-timeout must be at least twice outbox.relay.send-timeout");
+
+        this.outboxEventRepository = outboxEventRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.kafkaTemplate = kafkaTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.sendTimeout = sendTimeout;
+        this.claimTimeout = claimTimeout;
+        this.retention = retention;
+
+        this.sentEvents = Counter.builder("outbox.events.sent")
+                .description("Outbox events delivered to Kafka")
+                .register(meterRegistry);
+        this.failedEvents = Counter.builder("outbox.events.failed")
+                .description("Outbox event deliveries that failed and will be retried")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("outbox.relay.batch")
+                .description("Time to send, flush and mark one batch of outbox events")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval:200}")
+    public void relay() {
+        boolean fullBatchDelivered;
+        do {
+            fullBatchDelivered = relayBatch();
+        } while (fullBatchDelivered);
+    }
+
+    @Scheduled(cron = "${outbox.cleanup-cron:0 30 * * * *}")
+    @Transactional
+    public void deleteDeliveredEvents() {
+        int deleted = outboxEventRepository.deleteSentBefore(LocalDateTime.now().minus(retention));
+        if (deleted > 0)
+            log.info("Deleted {} delivered outbox events", deleted);
+    }
+
+    /**
+     * @return {@code true} if a full batch was delivered, so more events may be waiting
+     */
+    private boolean relayBatch() {
+        List<OutboxEvent> events = transactionTemplate.execute(status -> claimBatch());
+        if (events == null || events.isEmpty())
+            return false;
+
+        long start = System.nanoTime();
+        List<CompletableFuture<SendResult<String, String>>> futures = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            try {
+                futures.add(kafkaTemplate.send(toRecord(event)));
+            } catch (RuntimeException e) {
+                // The broker is unreachable, the remaining events stay in the outbox
+                log.warn("Failed to send outbox event {}: {}", event.getId(), e.getMessage());
+                break;
+            }
+        }
+        kafkaTemplate.flush();
+        awaitAll(futures);
+
+        List<OutboxEvent> delivered = new ArrayList<>(events.size());
+        List<Long> failedIds = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < events.size(); i++) {
+            OutboxEvent event = events.get(i);
+            CompletableFuture<SendResult<String, String>> future = i < futures.size() ? futures.get(i) : null;
+            if (future == null || !future.isDone() || future.isCompletedExceptionally()) {
+                failedIds.add(event.getId());
+                continue;
+            }
+
+            RecordMetadata metadata = future.join().getRecordMetadata();
+            event.setSentAt(now);
+            event.setKafkaPartition(metadata.partition());
+            event.setKafkaOffset(metadata.offset());
+            delivered.add(event);
+        }
+        transactionTemplate.executeWithoutResult(status -> markSent(delivered, failedIds));
+
+        int sent = delivered.size();
+        int failed = failedIds.size();
+        sentEvents.increment(sent);
+        failedEvents.increment(failed);
+        batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (failed > 0)
+            log.warn("Delivered {} of {} outbox events, the rest is retried on the next run", sent, events.size());
+
+        return failed == 0 && events.size() == batchSize;
+    }
+
+    private List<OutboxEvent> claimBatch() {
+        List<OutboxEvent> events = outboxEventRepository.lockUnclaimedBatch(batchSize);
+        if (!events.isEmpty())
+            outboxEventRepository.claim(events.stream().map(OutboxEvent::getId).toList(), claimTimeout.toSeconds());
+        return events;
+    }
+
+    private void markSent(List<OutboxEvent> delivered, List<Long> failedIds) {
+        if (!delivered.isEmpty()) {
+            jdbcTemplate.batchUpdate(MARK_SENT, delivered, delivered.size(), (statement, event) -> {
+                statement.setTimestamp(1, Timestamp.valueOf(event.getSentAt()));
+                statement.setInt(2, event.getKafkaPartition());
+                statement.setLong(3, event.getKafkaOffset());
+                statement.setLong(4, event.getId());
+            });
+        }
+        if (!failedIds.isEmpty())
+            outboxEventRepository.releaseClaim(failedIds);
+    }
+
+    private ProducerRecord<String, String> toRecord(OutboxEvent event) {
+        ProducerRecord<String, String> record =
+                new ProducerRecord<>(event.getTopic(), event.getMessageKey(), event.getPayload());
+        record.headers().add(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME,
+                event.getPayloadType().getBytes(StandardCharsets.UTF_8));
+        return record;
+    }
+
+    private void awaitAll(List<CompletableFuture<SendResult<String, String>>> futures) {
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                    .get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // Failed and pending sends are checked one by one
+        }
+    }
+}
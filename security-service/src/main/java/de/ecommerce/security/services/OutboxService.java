@@ -0,0 +1,99 @@
+package de.ecommerce.security.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.ecommerce.security.config.KafkaConfig;
+import de.ecommerce.security.models.OutboxEvent;
+import de.ecommerce.security.repositories.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.support.JacksonUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes Kafka events into the outbox table, in the transaction of the change that caused them.
+ * The events are published by the {@link OutboxRelay} once the transaction has committed,
+ * and are never published if it rolls back.
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    // Same mapper configuration the JsonSerializer of the Kafka producer uses
+    private static final ObjectMapper OBJECT_MAPPER = JacksonUtils.enhancedObjectMapper();
+
+    private static final String INSERT =
+            "insert into outbox_events (topic, message_key, payload_type, payload, created_at) values (?, ?, ?, ?, ?)";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * An event to add to the outbox.
+     *
+     * @param topic the topic the event is published to
+     * @param key the message key, may be {@code null}
+     * @param payload the event, its class must have a type alias in {@link KafkaConfig#TYPE_ALIASES}
+     */
+    public record Message(String topic, String key, Object payload) {
+    }
+
+    /**
+     * Adds an event to the outbox.
+     *
+     * @param topic the topic the event is published to
+     * @param key the message key, may be {@code null}
+     * @param payload the event, its class must have a type alias in {@link KafkaConfig#TYPE_ALIASES}
+     * @throws IllegalArgumentException if the payload has no type alias or cannot be serialized
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String topic, String key, Object payload) {
+        outboxEventRepository.save(toOutboxEvent(topic, key, payload));
+    }
+
+    /**
+     * Adds the events to the outbox with one JDBC batch.
+     *
+     * @param messages the events
+     * @throws IllegalArgumentException if a payload has no type alias or cannot be serialized
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueAll(List<Message> messages) {
+        if (messages.isEmpty())
+            return;
+
+        List<OutboxEvent> events = new ArrayList<>(messages.size());
+        for (Message message : messages)
+            events.add(toOutboxEvent(message.topic(), message.key(), message.payload()));
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT, events, events.size(), (statement, event) -> {
+            statement.setString(1, event.getTopic());
+            statement.setString(2, event.getMessageKey());
+            statement.setString(3, event.getPayloadType());
+            statement.setString(4, event.getPayload());
+            statement.setTimestamp(5, now);
+        });
+    }
+
+    private OutboxEvent toOutboxEvent(String topic, String key, Object payload) {
+        String payloadType = KafkaConfig.TYPE_ALIASES.get(payload.getClass());
+        if (payloadType == null)
+            throw new IllegalArgumentException("No type alias for " + payload.getClass().getName());
+
+        try {
+            return new OutboxEvent(topic, key, payloadType, OBJECT_MAPPER.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Event cannot be serialized: " + e.getMessage(), e);
+        }
+    }
+}
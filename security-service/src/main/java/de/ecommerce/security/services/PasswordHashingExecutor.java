@@ -0,0 +1,183 @@
+package de.ecommerce.security.services;
+
+import de.ecommerce.security.exceptions.HashingCapacityExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs password hashing on a dedicated, size-limited thread pool.
+ * <p>
+ * BCrypt is CPU-bound, so running it directly on the request threads lets a burst of logins
+ * take every CPU away from the other endpoints. The pool has a fixed number of threads and a
+ * bounded queue. If the queue is full, the task is rejected immediately with
+ * {@link HashingCapacityExceededException} instead of waiting. The pool keeps platform threads when
+ * {@code spring.threads.virtual.enabled} is set, the virtual request threads just wait for it.
+ * </p>
+ * Metrics: {@code password.hashing.queue.size}, {@code password.hashing.active},
+ * {@code password.hashing.wait}, {@code password.hashing.duration} and {@code password.hashing.rejected}.
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@Service
+@Slf4j
+public class PasswordHashingExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final Timer waitTimer;
+    private final Timer hashTimer;
+    private final Counter rejectedCounter;
+
+    public PasswordHashingExecutor(@Value("${password.hashing.threads:0}") int threads,
+                                   @Value("${password.hashing.queue-capacity:64}") int queueCapacity,
+                                   MeterRegistry meterRegistry) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("password-hashing-"),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("password.hashing.queue.size", executor, pool -> pool.getQueue().size())
+                .description("Password hashing tasks waiting for a thread")
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Password hashing tasks currently running")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("password.hashing.wait")
+                .description("Time a password hashing task waited in the queue")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.hashTimer = Timer.builder("password.hashing.duration")
+                .description("Time spent hashing or verifying a password")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("password.hashing.rejected")
+                .description("Password hashing tasks rejected because the queue was full")
+                .register(meterRegistry);
+
+        log.info("Password hashing pool started with {} threads and queue capacity {}", poolSize, queueCapacity);
+    }
+
+    /**
+     * Runs the task on the hashing pool and waits for its result.
+     *
+     * @param task the hashing task
+     * @return the result of the task
+     * @throws HashingCapacityExceededException if the queue is full
+     */
+    public <T> T execute(Supplier<T> task) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> timed(task, submittedAt));
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            log.warn("Password hashing queue is full, request rejected");
+            throw new HashingCapacityExceededException("The service is busy, please try again later.");
+        }
+
+        return await(future);
+    }
+
+    /**
+     * Runs the tasks on the hashing pool with at most {@code parallelism} of them queued or running at a time,
+     * so a bulk operation leaves room in the queue for logins. If the queue is full anyway, the remaining tasks
+     * wait and are submitted again instead of being rejected.
+     *
+     * @param tasks the hashing tasks
+     * @param parallelism the maximum number of tasks queued or running at a time
+     * @return the results of the tasks, in the order of the tasks
+     */
+    public <T> List<T> executeAll(List<Supplier<T>> tasks, int parallelism) {
+        Semaphore permits = new Semaphore(Math.max(1, parallelism));
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        try {
+            for (Supplier<T> task : tasks) {
+                permits.acquire();
+                long submittedAt = System.nanoTime();
+                futures.add(submitUntilAccepted(() -> {
+                    try {
+                        return timed(task, submittedAt);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while submitting password hashing", e);
+        }
+
+        List<T> results = new ArrayList<>(futures.size());
+        for (Future<T> future : futures)
+            results.add(await(future));
+        return results;
+    }
+
+    private <T> Future<T> submitUntilAccepted(Callable<T> task) throws InterruptedException {
+        while (true) {
+            try {
+                return executor.submit(task);
+            } catch (RejectedExecutionException e) {
+                if (executor.isShutdown())
+                    throw e;
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    private <T> T timed(Supplier<T> task, long submittedAt) {
+        long startedAt = System.nanoTime();
+        waitTimer.record(startedAt - submittedAt, TimeUnit.NANOSECONDS);
+        try {
+            return task.get();
+        } finally {
+            hashTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException)
+                throw runtimeException;
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    /**
+     * @return the number of threads of the pool
+     */
+    public int getPoolSize() {
+        return executor.getCorePoolSize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
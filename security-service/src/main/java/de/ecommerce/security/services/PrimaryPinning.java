@@ -0,0 +1,52 @@
+package de.ecommerce.security.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import de.ecommerce.security.config.ReplicaRoutingDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Keeps the reads of recently changed users on the primary, so they see their own writes.
+ * <p>
+ * A user is pinned for {@code datasource.replica.pin-window} whenever their credentials are invalidated,
+ * which happens on every replica of the service after a password change, an activation or a rehash.
+ * The window should be longer than the replication lag. Without a replica the pinning has no effect.
+ * </p>
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@Service
+public class PrimaryPinning {
+
+    private final Cache<String, Boolean> pinnedEmails;
+
+    public PrimaryPinning(@Value("${datasource.replica.pin-window:5s}") Duration pinWindow,
+                          @Value("${credentials-cache.maximum-size:100000}") long maximumSize) {
+        this.pinnedEmails = Caffeine.newBuilder()
+                .expireAfterWrite(pinWindow)
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    /**
+     * @param email the email of the changed user
+     */
+    public void pin(String email) {
+        pinnedEmails.put(email, Boolean.TRUE);
+    }
+
+    /**
+     * Routes the reads of the user to the primary until the scope is closed, if the user is pinned.
+     *
+     * @param email the email of the user
+     * @return the scope to close after the reads
+     */
+    public ReplicaRoutingDataSource.Scope routeFor(String email) {
+        return email != null && pinnedEmails.getIfPresent(email) != null
+                ? ReplicaRoutingDataSource.forcePrimary()
+                : ReplicaRoutingDataSource.Scope.NONE;
+    }
+}
@@ -0,0 +1,174 @@
+package de.ecommerce.security.services;
+
+import de.ecommerce.security.dto.AuthTokens;
+import de.ecommerce.security.exceptions.InvalidRefreshTokenException;
+import de.ecommerce.security.models.RefreshToken;
+import de.ecommerce.security.models.RefreshTokenLookup;
+import de.ecommerce.security.models.UserCredentials;
+import de.ecommerce.security.repositories.RefreshTokenRepository;
+import de.ecommerce.security.token.JWTUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Issues and rotates the refresh tokens that renew access tokens without a password check.
+ * <p>
+ * A refresh token is 256 random bits, only its SHA-256 hash is stored. A refresh finds the token and its user
+ * with one lookup of the unique hash index, marks the token as used and issues a new access token and a new
+ * refresh token of the same family. Presenting a used token again means it was copied, so the whole family is
+ * revoked and every holder has to log in again. Changing the password revokes all tokens of the user.
+ * </p>
+ * Metrics: {@code refresh-tokens.refreshes} tagged with the result.
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@Service
+@Slf4j
+public class RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+    private static final Base64.Encoder TOKEN_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final JWTUtils jwtUtils;
+    private final ScheduledJobLock jobLock;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Duration ttl;
+    private final Duration retention;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               JWTUtils jwtUtils,
+                               ScheduledJobLock jobLock,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${refresh-tokens.ttl:14d}") Duration ttl,
+                               @Value("${refresh-tokens.retention:7d}") Duration retention) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.jwtUtils = jwtUtils;
+        this.jobLock = jobLock;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.ttl = ttl;
+        this.retention = retention;
+    }
+
+    /**
+     * Starts a new token family for a login. Runs in its own transaction, the login itself is read-only.
+     *
+     * @param user the authenticated user
+     * @return the new refresh token
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public String issue(UserCredentials user) {
+        return create(UUID.randomUUID().toString(), user.getUserId());
+    }
+
+    /**
+     * Exchanges a refresh token for a new access token and a new refresh token.
+     * A rejected refresh does not roll back, so a family revoked because of a reuse stays revoked.
+     *
+     * @param refreshToken the refresh token presented by the client
+     * @return the new tokens
+     * @throws InvalidRefreshTokenException if the token is unknown, expired, revoked or has been used before
+     */
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public AuthTokens refresh(String refreshToken) {
+        RefreshTokenLookup token = refreshTokenRepository.findLookupByTokenHash(hash(refreshToken))
+                .orElseThrow(() -> reject("unknown", "Unknown refresh token"));
+
+        if (token.revokedAt() != null)
+            throw reject("revoked", "Refresh token has been revoked");
+        if (!token.expiresAt().isAfter(LocalDateTime.now()))
+            throw reject("expired", "Refresh token has expired");
+        if (token.usedAt() != null || refreshTokenRepository.markUsed(token.id(), LocalDateTime.now()) == 0) {
+            int revoked = refreshTokenRepository.revokeFamily(token.familyId(), LocalDateTime.now());
+            log.warn("Refresh token of user {} was used twice, revoked {} tokens of its family", token.userId(), revoked);
+            throw reject("reused", "Refresh token has already been used");
+        }
+        if (!token.active())
+            throw reject("inactive", "User is not active");
+
+        UserCredentials credentials = token.toCredentials();
+        String accessToken = jwtUtils.generateToken(credentials);
+        String nextRefreshToken = create(token.familyId(), token.userId());
+        meterRegistry.counter("refresh-tokens.refreshes", "result", "rotated").increment();
+        return new AuthTokens(accessToken, nextRefreshToken);
+    }
+
+    /**
+     * Revokes the family of the token, the logout of one session. Unknown tokens are ignored.
+     *
+     * @param refreshToken the refresh token presented by the client
+     */
+    @Transactional
+    public void revoke(String refreshToken) {
+        refreshTokenRepository.findLookupByTokenHash(hash(refreshToken))
+                .ifPresent(token -> refreshTokenRepository.revokeFamily(token.familyId(), LocalDateTime.now()));
+    }
+
+    /**
+     * Revokes every refresh token of the user, all sessions have to log in again.
+     *
+     * @param userId the id of the user
+     */
+    @Transactional
+    public void revokeAll(String userId) {
+        int revoked = refreshTokenRepository.revokeAllOfUser(userId, LocalDateTime.now());
+        log.info("Revoked {} refresh tokens of user {}", revoked, userId);
+    }
+
+    /**
+     * Deletes tokens that expired more than {@code refresh-tokens.retention} ago. Until then they are kept,
+     * so a reused token is still recognised as reused shortly after its expiry.
+     */
+    @Scheduled(cron = "${refresh-tokens.cleanup-cron:0 30 2 * * *}")
+    public void deleteExpiredTokens() {
+        jobLock.run("refresh-token-cleanup", Duration.ofHours(1), () -> {
+            Integer deleted = transactionTemplate.execute(status ->
+                    refreshTokenRepository.deleteExpiredBefore(LocalDateTime.now().minus(retention)));
+            log.info("Deleted {} expired refresh tokens", deleted);
+        });
+    }
+
+    private String create(String familyId, String userId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        String token = TOKEN_ENCODER.encodeToString(bytes);
+
+        refreshTokenRepository.save(new RefreshToken(hash(token), familyId, userId, LocalDateTime.now().plus(ttl)));
+        return token;
+    }
+
+    private InvalidRefreshTokenException reject(String result, String message) {
+        meterRegistry.counter("refresh-tokens.refreshes", "result", result).increment();
+        return new InvalidRefreshTokenException(message);
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package de.ecommerce.security.services;
+
+import de.ecommerce.security.repositories.UserRepository;
+import de.ecommerce.security.utils.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * In-memory Bloom filter of the registered emails, used to skip the existence lookup for new emails.
+ * <p>
+ * The filter is built once the application is ready by streaming the emails of the {@code users} table,
+ * and every registered email is added to it. Until it is built, every email is reported as possibly registered.
+ * A "possibly registered" answer still needs the database lookup; the unique constraint on {@code email}
+ * stays the final guard against concurrent registrations.
+ * </p>
+ * <p>
+ * The filter is sized for {@code registration.email-filter.expected-insertions} emails, or for twice the current
+ * number of users if that is larger, with a false positive rate of {@code registration.email-filter.false-positive-rate}.
+ * </p>
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@Service
+@Slf4j
+public class RegisteredEmailFilter {
+
+    private final UserRepository userRepository;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final Counter skippedLookups;
+    private final Counter requiredLookups;
+
+    private final List<String> pendingEmails = new ArrayList<>();
+    private volatile BloomFilter filter;
+
+    public RegisteredEmailFilter(UserRepository userRepository,
+                                 @Value("${registration.email-filter.expected-insertions:1000000}") long expectedInsertions,
+                                 @Value("${registration.email-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                                 MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+
+        this.skippedLookups = Counter.builder("registration.email.lookups")
+                .tag("result", "skipped")
+                .description("Registrations whose email existence lookup was skipped by the Bloom filter")
+                .register(meterRegistry);
+        this.requiredLookups = Counter.builder("registration.email.lookups")
+                .tag("result", "required")
+                .description("Registrations whose email existence had to be looked up in the database")
+                .register(meterRegistry);
+        Gauge.builder("registration.email.filter.memory", this, f -> f.filter == null ? 0 : f.filter.getMemoryBytes())
+                .baseUnit("bytes")
+                .description("Memory used by the registered email Bloom filter")
+                .register(meterRegistry);
+        Gauge.builder("registration.email.filter.false-positive-rate",
+                        this, f -> f.filter == null ? 1 : f.filter.estimateFalsePositiveRate())
+                .description("Estimated false positive rate of the registered email Bloom filter")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void build() {
+        long start = System.nanoTime();
+        long expected = Math.max(expectedInsertions, userRepository.count() * 2);
+        BloomFilter newFilter = BloomFilter.create(expected, falsePositiveRate);
+
+        try (Stream<String> emails = userRepository.streamAllEmails()) {
+            emails.forEach(newFilter::put);
+        }
+
+        synchronized (this) {
+            pendingEmails.forEach(newFilter::put);
+            pendingEmails.clear();
+            filter = newFilter;
+        }
+
+        log.info("Registered email filter built in {} ms: {} expected emails, {} hash functions, {} KiB, estimated false positive rate {}",
+                (System.nanoTime() - start) / 1_000_000, expected, newFilter.getHashFunctions(),
+                newFilter.getMemoryBytes() / 1024, newFilter.estimateFalsePositiveRate());
+    }
+
+    /**
+     * @param email the email to check
+     * @return {@code false} if the email is definitely not registered, {@code true} if it might be
+     */
+    public boolean mightBeRegistered(String email) {
+        BloomFilter current = filter;
+        boolean mightBeRegistered = current == null || current.mightContain(email);
+        (mightBeRegistered ? requiredLookups : skippedLookups).increment();
+        return mightBeRegistered;
+    }
+
+    /**
+     * Adds a registered email. Emails registered while the filter is built are added once it is ready.
+     *
+     * @param email the registered email
+     */
+    public void add(String email) {
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(email);
+            return;
+        }
+
+        synchronized (this) {
+            if (filter != null)
+                filter.put(email);
+            else
+                pendingEmails.add(email);
+        }
+    }
+}
@@ -1,47 +1,136 @@
 package de.ecommerce.security.services;
 
-import de.ecommerce.security.models.PersonalUserToken;
-import de.ecommerce.security.models.User;
 import de.ecommerce.security.repositories.UserRepository;
 import de.ecommerce.security.repositories.UserTokenRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
+ * Nightly cleanup of never activated users. Expired tokens are removed by {@link TokenPartitionMaintenance}.
+ * <p>
+ * Rows are deleted in chunks of {@code cleanup.chunk-size}, each chunk in its own short transaction,
+ * so memory stays bounded by the chunk size and row locks are only held for one chunk.
+ * Users are only deleted if they have not been activated within {@code cleanup.inactive-user-grace-period}.
+ * The credentials of the deleted users are invalidated on every replica with the chunk, see {@link UserCredentialsCache}.
+ * Deleted rows are counted in {@code cleanup.rows.deleted}, and every run logs its rows per second.
+ * The job runs on one replica per schedule, see {@link ScheduledJobLock}.
+ * </p>
  * @author EgorBusuioc
  * 26.06.2025
  */
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class ScheduleActionsService {
 
     private final UserTokenRepository userTokenRepository;
     private final UserRepository userRepository;
+    private final UserCredentialsCache credentialsCache;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int chunkSize;
+    private final Duration inactiveUserGracePeriod;
+    private final Duration chunkPause;
+    private final ScheduledJobLock jobLock;
+    private final int shards;
+    private final Duration lockAtLeastFor;
 
+    public ScheduleActionsService(UserTokenRepository userTokenRepository,
+                                  UserRepository userRepository,
+                                  UserCredentialsCache credentialsCache,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  ScheduledJobLock jobLock,
+                                  @Value("${cleanup.chunk-size:1000}") int chunkSize,
+                                  @Value("${cleanup.inactive-user-grace-period:7d}") Duration inactiveUserGracePeriod,
+                                  @Value("${cleanup.chunk-pause:0ms}") Duration chunkPause,
+                                  @Value("${cleanup.shards:1}") int shards,
+                                  @Value("${cleanup.lock-at-least-for:1h}") Duration lockAtLeastFor) {
+        this.userTokenRepository = userTokenRepository;
+        this.userRepository = userRepository;
+        this.credentialsCache = credentialsCache;
+        this.jobLock = jobLock;
+        this.shards = shards;
+        this.lockAtLeastFor = lockAtLeastFor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.chunkSize = chunkSize;
+        this.inactiveUserGracePeriod = inactiveUserGracePeriod;
+        this.chunkPause = chunkPause;
+    }
+
+    /**
+     * Runs once per schedule across all replicas. With {@code cleanup.shards} above 1, the replicas
+     * share the work by shard.
+     */
     @Scheduled(cron = "0 0 3 * * *")
     public void checkExpiredTokens() {
+        jobLock.runSharded("cleanup", shards, lockAtLeastFor, shard -> {
+            deleteInChunks("users", () -> deleteInactiveUserChunk(shard));
+        });
+    }
 
-        List<PersonalUserToken> expiredTokens = userTokenRepository.findAll();
+    private int deleteInactiveUserChunk(ScheduledJobLock.Shard shard) {
+        List<String> userIds = userRepository.findInactiveUserIds(
+                LocalDateTime.now().minus(inactiveUserGracePeriod), shard.index(), shard.count(), chunkSize);
+        if (userIds.isEmpty())
+            return 0;
 
-        for (PersonalUserToken token : expiredTokens) {
-            if (token.getExpirationDate().isBefore(java.time.LocalDateTime.now())) {
-                userTokenRepository.delete(token);
-                log.info("Deleted expired token: {}", token.getToken());
-            }
-        }
+        List<Long> tokenIds = userRepository.findTokenIdsByUserIds(userIds);
+        credentialsCache.invalidateAll(userRepository.findEmailsByUserIds(userIds));
+        int deleted = userRepository.deleteByUserIds(userIds);
+        if (!tokenIds.isEmpty())
+            userTokenRepository.deleteByTokenIds(tokenIds);
+        return deleted;
+    }
+
+    /**
+     * Runs the chunk in its own transaction until it deletes less than a full chunk.
+     *
+     * @param table the table the rows are deleted from, used as metric tag
+     * @param chunk deletes one chunk and returns the number of deleted rows
+     */
+    private void deleteInChunks(String table, Supplier<Integer> chunk) {
+        long start = System.nanoTime();
+        long total = 0;
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> chunk.get());
+            total += deleted;
+            meterRegistry.counter("cleanup.rows.deleted", "table", table).increment(deleted);
+            pauseBetweenChunks(deleted);
+        } while (deleted == chunkSize);
 
-        List<User> users = userRepository.findAll();
+        long elapsedNanos = System.nanoTime() - start;
+        Timer.builder("cleanup.duration")
+                .tag("table", table)
+                .description("Duration of the cleanup runs")
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        double seconds = Math.max(elapsedNanos / 1e9, 1e-3);
+        log.info("Cleanup of {} deleted {} rows in {} ms ({} rows/sec)",
+                table, total, elapsedNanos / 1_000_000, Math.round(total / seconds));
+    }
 
-        for (User user : users) {
-            if (!user.isActive()) {
-                userRepository.delete(user);
-                log.info("Deleted not activated user: {}", user.getEmail());
-            }
+    private void pauseBetweenChunks(int deleted) {
+        if (deleted < chunkSize || chunkPause.isZero())
+            return;
+        try {
+            Thread.sleep(chunkPause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 }
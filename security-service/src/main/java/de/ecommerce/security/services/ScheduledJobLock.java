@@ -0,0 +1,169 @@
+package de.ecommerce.security.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Makes sure a scheduled job runs on one replica only.
+ * <p>
+ * A job run holds a Postgres advisory lock on a dedicated connection, so a second replica cannot start the
+ * job while it runs, and the lock is released by the database if the replica dies. After the lock is taken,
+ * the start is recorded in {@code scheduled_job_runs}; a replica whose schedule fires later, because its clock
+ * is behind, sees that the job ran within {@code lockAtLeastFor} and skips it. Both checks use the database
+ * clock, so the replicas' clocks do not matter.
+ * </p>
+ * <p>
+ * A job can be split into shards. Every shard is locked and recorded on its own, and each replica works on
+ * the shards it gets, starting at a random one, so the shards spread over the replicas.
+ * </p>
+ * <p>
+ * Lock attempts are counted in {@code scheduler.lock.attempts} by result, job runs are timed in
+ * {@code scheduler.job.duration}.
+ * </p>
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ScheduledJobLock {
+
+    private static final String LOCKED_BY = ManagementFactory.getRuntimeMXBean().getName();
+
+    private static final String RECORD_START =
+            "insert into scheduled_job_runs (job_name, last_started_at, locked_by) values (?, now(), ?) " +
+            "on conflict (job_name) do update set last_started_at = now(), locked_by = excluded.locked_by " +
+            "where scheduled_job_runs.last_started_at is null " +
+            "or scheduled_job_runs.last_started_at < now() - make_interval(secs => ?)";
+
+    private static final String RECORD_FINISH =
+            "update scheduled_job_runs set last_finished_at = now() where job_name = ?";
+
+    private final DataSource dataSource;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * One shard of a job.
+     *
+     * @param index the index of the shard, from 0 to {@code count - 1}
+     * @param count the number of shards
+     */
+    public record Shard(int index, int count) {
+    }
+
+    /**
+     * Runs the job unless another replica runs it or it ran within {@code lockAtLeastFor}.
+     *
+     * @param jobName the name of the job, unique across the application
+     * @param lockAtLeastFor the minimum time between two runs, shorter than the schedule interval
+     * @param job the job
+     */
+    public void run(String jobName, Duration lockAtLeastFor, Runnable job) {
+        runSharded(jobName, 1, lockAtLeastFor, shard -> job.run());
+    }
+
+    /**
+     * Runs every shard of the job that no other replica runs and that did not run within {@code lockAtLeastFor}.
+     *
+     * @param jobName the name of the job, unique across the application
+     * @param shards the number of shards
+     * @param lockAtLeastFor the minimum time between two runs of a shard, shorter than the schedule interval
+     * @param job runs one shard
+     */
+    public void runSharded(String jobName, int shards, Duration lockAtLeastFor, Consumer<Shard> job) {
+        int first = ThreadLocalRandom.current().nextInt(shards);
+        for (int i = 0; i < shards; i++) {
+            Shard shard = new Shard((first + i) % shards, shards);
+            String lockName = shards == 1 ? jobName : jobName + "#" + shard.index();
+            tryRun(jobName, lockName, lockAtLeastFor, () -> job.accept(shard));
+        }
+    }
+
+    private void tryRun(String jobName, String lockName, Duration lockAtLeastFor, Runnable job) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+
+            long acquireStart = System.nanoTime();
+            boolean locked = tryAdvisoryLock(connection, lockName);
+            meterRegistry.timer("scheduler.lock.acquire", "job", jobName)
+                    .record(System.nanoTime() - acquireStart, TimeUnit.NANOSECONDS);
+            if (!locked) {
+                countAttempt(jobName, "busy");
+                log.debug("Job {} is running on another replica", lockName);
+                return;
+            }
+
+            try {
+                if (!recordStart(connection, lockName, lockAtLeastFor)) {
+                    countAttempt(jobName, "recently-run");
+                    log.debug("Job {} ran within the last {}, skipping", lockName, lockAtLeastFor);
+                    return;
+                }
+
+                countAttempt(jobName, "acquired");
+                Timer.Sample sample = Timer.start(meterRegistry);
+                try {
+                    job.run();
+                } finally {
+                    sample.stop(meterRegistry.timer("scheduler.job.duration", "job", jobName));
+                    execute(connection, RECORD_FINISH, lockName);
+                }
+            } finally {
+                advisoryUnlock(connection, lockName);
+            }
+        } catch (SQLException e) {
+            countAttempt(jobName, "error");
+            log.error("Failed to lock job {}: {}", lockName, e.getMessage());
+        }
+    }
+
+    private boolean tryAdvisoryLock(Connection connection, String lockName) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("select pg_try_advisory_lock(hashtextextended(?, 0))")) {
+            statement.setString(1, lockName);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+
+    private void advisoryUnlock(Connection connection, String lockName) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("select pg_advisory_unlock(hashtextextended(?, 0))")) {
+            statement.setString(1, lockName);
+            statement.executeQuery().close();
+        }
+    }
+
+    private boolean recordStart(Connection connection, String lockName, Duration lockAtLeastFor) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(RECORD_START)) {
+            statement.setString(1, lockName);
+            statement.setString(2, LOCKED_BY);
+            statement.setDouble(3, lockAtLeastFor.toMillis() / 1000.0);
+            return statement.executeUpdate() == 1;
+        }
+    }
+
+    private void execute(Connection connection, String sql, String lockName) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, lockName);
+            statement.executeUpdate();
+        }
+    }
+
+    private void countAttempt(String jobName, String result) {
+        meterRegistry.counter("scheduler.lock.attempts", "job", jobName, "result", result).increment();
+    }
+}
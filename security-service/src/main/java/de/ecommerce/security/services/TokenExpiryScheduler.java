@@ -0,0 +1,159 @@
+package de.ecommerce.security.services;
+
+import de.ecommerce.security.models.PersonalUserToken;
+import de.ecommerce.security.models.TokenExpiry;
+import de.ecommerce.security.models.User;
+import de.ecommerce.security.repositories.UserRepository;
+import de.ecommerce.security.repositories.UserTokenRepository;
+import de.ecommerce.security.utils.HierarchicalTimingWheel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Detaches activation and reset password tokens from their users shortly after they expire.
+ * <p>
+ * Every token created by this replica is scheduled in a {@link HierarchicalTimingWheel}. Each tick, the expired
+ * tokens are detached from their users in batches of {@code tokens.expiry.batch-size}, so an expired token no
+ * longer blocks a new reset password request. The token rows are not deleted: row deletes would leave dead tuples
+ * in the partitions, and the rows are removed with their whole partition by {@link TokenPartitionMaintenance}. At startup the wheel is filled from the database with one
+ * range scan over the expiration dates, which also picks up the tokens of other or stopped replicas.
+ * Tokens that are used before they expire are already detached when their expiry fires.
+ * </p>
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@Service
+@Slf4j
+public class TokenExpiryScheduler {
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private final UserTokenRepository userTokenRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final HierarchicalTimingWheel<Long> wheel;
+    private final int batchSize;
+    private final Counter detachedTokens;
+
+    public TokenExpiryScheduler(UserTokenRepository userTokenRepository,
+                                UserRepository userRepository,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${tokens.expiry.tick:1s}") Duration tick,
+                                @Value("${tokens.expiry.batch-size:100}") int batchSize) {
+        this.userTokenRepository = userTokenRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        // 64 buckets on 3 levels cover 64^3 ticks, with 1s ticks about 3 days
+        this.wheel = new HierarchicalTimingWheel<>(tick.toMillis(), 64, 3, System.currentTimeMillis());
+
+        this.detachedTokens = Counter.builder("tokens.expired.detached")
+                .description("Expired tokens detached from their users by the timing wheel")
+                .register(meterRegistry);
+        Gauge.builder("tokens.expiry.scheduled", wheel, HierarchicalTimingWheel::size)
+                .description("Tokens waiting in the timing wheel for their expiry")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Schedules the expiry of the user's token once the current transaction has committed,
+     * when the token has its id and expiration date.
+     *
+     * @param user the user whose token has just been created
+     */
+    public void scheduleTokenOf(User user) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            schedule(user.getToken());
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                schedule(user.getToken());
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        // Older partitions are dropped by TokenPartitionMaintenance
+        LocalDateTime since = LocalDateTime.now().minusDays(1);
+        Long scheduled = transactionTemplate.execute(status -> {
+            long count = 0;
+            try (Stream<TokenExpiry> expiries = userTokenRepository.streamExpiriesSince(since)) {
+                Iterator<TokenExpiry> iterator = expiries.iterator();
+                while (iterator.hasNext()) {
+                    TokenExpiry expiry = iterator.next();
+                    wheel.add(toMillis(expiry.expirationDate()), expiry.tokenId());
+                    count++;
+                }
+            }
+            return count;
+        });
+        log.info("Scheduled the expiry of {} tokens", scheduled);
+    }
+
+    @Scheduled(fixedDelayString = "${tokens.expiry.tick:1s}")
+    public void detachExpiredTokens() {
+        List<Long> expired = wheel.advance(System.currentTimeMillis());
+        for (int from = 0; from < expired.size(); from += batchSize) {
+            List<Long> batch = expired.subList(from, Math.min(from + batchSize, expired.size()));
+            try {
+                Integer detached = transactionTemplate.execute(status -> detachBatch(batch));
+                detachedTokens.increment(detached);
+            } catch (RuntimeException e) {
+                // The token partition is dropped later anyway, the tokens are not rescheduled
+                log.error("Failed to detach {} expired tokens: {}", batch.size(), e.getMessage());
+            }
+        }
+    }
+
+    private int detachBatch(List<Long> tokenIds) {
+        // Checked again against the stored expiration date, a token is never detached before it has expired
+        List<Long> expiredIds = userTokenRepository.findExpiredTokenIds(tokenIds, LocalDateTime.now());
+        if (expiredIds.isEmpty())
+            return 0;
+
+        return userRepository.detachTokens(expiredIds);
+    }
+
+    /**
+     * Schedules the expiry of a token that has already been committed.
+     *
+     * @param tokenId the id of the token
+     * @param expirationDate the expiration date of the token
+     */
+    public void schedule(Long tokenId, LocalDateTime expirationDate) {
+        wheel.add(toMillis(expirationDate), tokenId);
+    }
+
+    private void schedule(PersonalUserToken token) {
+        if (token == null || token.getTokenId() == null || token.getExpirationDate() == null)
+            return;
+        schedule(token.getTokenId(), token.getExpirationDate());
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZONE).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,37 @@
+package de.ecommerce.security.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Reports the service down when {@code personal_user_tokens} has no partition for today or tomorrow.
+ * <p>
+ * The table has no default partition, so without them every token insert fails. The partitions are created
+ * by {@link TokenPartitionMaintenance}, this catches a maintenance which stopped running.
+ * </p>
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@Component
+@RequiredArgsConstructor
+public class TokenPartitionHealthIndicator implements HealthIndicator {
+
+    private static final String MISSING_PARTITIONS =
+            "select 'personal_user_tokens_p' || to_char(current_date + day, 'YYYYMMDD') from generate_series(0, 1) as day " +
+            "where to_regclass('personal_user_tokens_p' || to_char(current_date + day, 'YYYYMMDD')) is null";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Health health() {
+        List<String> missing = jdbcTemplate.queryForList(MISSING_PARTITIONS, String.class);
+        if (missing.isEmpty())
+            return Health.up().build();
+        return Health.down().withDetail("missingPartitions", missing).build();
+    }
+}
@@ -0,0 +1,109 @@
+package de.ecommerce.security.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Maintains the daily partitions of {@code personal_user_tokens}.
+ * <p>
+ * Partitions are created {@code tokens.partitions.days-ahead} days ahead, so inserts never miss a partition.
+ * A partition is dropped once every token in it has expired: the users referencing its tokens are detached,
+ * then the partition is detached and dropped, which removes its tokens without row deletes and table bloat.
+ * Both run on one replica at a time, see {@link ScheduledJobLock}.
+ * </p>
+ * <p>
+ * Days are taken from the {@code current_date} of the database, not from the clock of the replica. The expiration
+ * dates are written in the zone of the replica, so a partition is only dropped a day after it has expired in the
+ * database, which covers any difference between the two zones.
+ * </p>
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@Service
+@Slf4j
+public class TokenPartitionMaintenance {
+
+    private static final String PARTITION_PREFIX = "personal_user_tokens_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ScheduledJobLock jobLock;
+    private final int daysAhead;
+
+    public TokenPartitionMaintenance(JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     ScheduledJobLock jobLock,
+                                     @Value("${tokens.partitions.days-ahead:3}") int daysAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jobLock = jobLock;
+        this.daysAhead = daysAhead;
+    }
+
+    /**
+     * Creates the coming partitions once the application is up, in case the replicas were down at the scheduled
+     * runs. If another replica holds the lock, it is creating them.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void createPartitionsAtStartup() {
+        jobLock.run("token-partitions-startup", Duration.ZERO, this::createPartitions);
+    }
+
+    @Scheduled(cron = "${tokens.partitions.cron:0 5 * * * *}")
+    public void maintainPartitions() {
+        jobLock.run("token-partitions", Duration.ofMinutes(5), () -> {
+            createPartitions();
+            dropExpiredPartitions();
+        });
+    }
+
+    private void createPartitions() {
+        jdbcTemplate.queryForList(
+                "select create_personal_user_tokens_partition(current_date + day) from generate_series(0, ?) as day",
+                daysAhead);
+    }
+
+    private void dropExpiredPartitions() {
+        List<String> partitions = jdbcTemplate.queryForList(
+                "select child.relname from pg_inherits " +
+                        "join pg_class parent on parent.oid = pg_inherits.inhparent " +
+                        "join pg_class child on child.oid = pg_inherits.inhrelid " +
+                        "where parent.relname = 'personal_user_tokens' order by child.relname",
+                String.class);
+
+        LocalDate yesterday = jdbcTemplate.queryForObject("select current_date - 1", Date.class).toLocalDate();
+        for (String partition : partitions) {
+            if (!partition.startsWith(PARTITION_PREFIX))
+                continue;
+
+            // The partition of a day holds the tokens expiring before midnight, it is expired from the next day on
+            LocalDate day = LocalDate.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+            if (day.isBefore(yesterday))
+                dropPartition(partition);
+        }
+    }
+
+    private void dropPartition(String partition) {
+        transactionTemplate.executeWithoutResult(status -> {
+            int detachedUsers = jdbcTemplate.update(
+                    "update users set token_id = null where token_id in (select token_id from " + partition + ")");
+            jdbcTemplate.execute("alter table personal_user_tokens detach partition " + partition);
+            jdbcTemplate.execute("drop table " + partition);
+            log.info("Dropped expired token partition {}, detached {} users", partition, detachedUsers);
+        });
+    }
+}
@@ -0,0 +1,125 @@
+package de.ecommerce.security.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import de.ecommerce.security.dto.CredentialsInvalidationEvent;
+import de.ecommerce.security.models.UserCredentials;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.PartitionOffset;
+import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Bounded in-memory cache of login credentials keyed by email.
+ * <p>
+ * Entries expire after {@code credentials-cache.ttl} and the least used entries are evicted
+ * above {@code credentials-cache.maximum-size}. When a user is changed, an invalidation event is added
+ * to the outbox in the same transaction and the entry is dropped after the commit, so every replica drops
+ * its entry as well once the {@link OutboxRelay} has published the event. Every replica then pins the user to the primary database for a short while,
+ * so the next load cannot cache the old state read from a lagging read replica, see {@link PrimaryPinning}.
+ * Hit rate is exported as the {@code cache.*} metrics of {@code user-credentials}.
+ * </p>
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@Service
+public class UserCredentialsCache {
+
+    public static final String INVALIDATION_TOPIC = "user-credentials-invalidation-events";
+
+    private final Cache<String, UserCredentials> cache;
+    private final OutboxService outboxService;
+    private final PrimaryPinning primaryPinning;
+
+    public UserCredentialsCache(@Value("${credentials-cache.maximum-size:100000}") long maximumSize,
+                                @Value("${credentials-cache.ttl:10m}") Duration ttl,
+                                OutboxService outboxService,
+                                PrimaryPinning primaryPinning,
+                                MeterRegistry meterRegistry) {
+        this.outboxService = outboxService;
+        this.primaryPinning = primaryPinning;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "user-credentials");
+    }
+
+    /**
+     * Returns the cached credentials or loads them. Unknown users are not cached.
+     *
+     * @param email the email of the user
+     * @param loader loads the credentials, returns {@code null} if the user does not exist
+     * @return the credentials, or {@code null} if the user does not exist
+     */
+    public UserCredentials get(String email, Function<String, UserCredentials> loader) {
+        return cache.get(email, loader);
+    }
+
+    /**
+     * Drops the credentials of the user on this and on every other replica after the transaction commits,
+     * so no replica can cache the old state again. The event for the other replicas is written to the outbox
+     * with the change, and is published even if the broker is down at the moment of the commit.
+     *
+     * @param email the email of the changed user
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void invalidate(String email) {
+        outboxService.enqueue(INVALIDATION_TOPIC, email, new CredentialsInvalidationEvent(email));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(email);
+            }
+        });
+    }
+
+    /**
+     * Drops the credentials of the users like {@link #invalidate(String)}, with one outbox batch.
+     *
+     * @param emails the emails of the changed users
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void invalidateAll(Collection<String> emails) {
+        List<OutboxService.Message> messages = new ArrayList<>(emails.size());
+        for (String email : emails)
+            messages.add(new OutboxService.Message(INVALIDATION_TOPIC, email, new CredentialsInvalidationEvent(email)));
+        outboxService.enqueueAll(messages);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                emails.forEach(UserCredentialsCache.this::evict);
+            }
+        });
+    }
+
+    /**
+     * Every replica reads the whole topic, so the partitions are assigned manually instead of a consumer group
+     * per replica. Without a group no offsets are committed, a replica starts at the end of the topic.
+     */
+    @KafkaListener(topicPartitions = @TopicPartition(topic = INVALIDATION_TOPIC,
+            partitionOffsets = @PartitionOffset(partition = "*", initialOffset = "0", relativeToCurrent = "true")),
+            properties = {"enable.auto.commit=false", "auto.offset.reset=latest"})
+    public void onInvalidation(CredentialsInvalidationEvent event) {
+        evict(event.getEmail());
+    }
+
+    private void evict(String email) {
+        primaryPinning.pin(email);
+        cache.invalidate(email);
+    }
+}
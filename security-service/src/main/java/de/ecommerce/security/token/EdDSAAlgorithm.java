@@ -0,0 +1,88 @@
+package de.ecommerce.security.token;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.SignatureGenerationException;
+import com.auth0.jwt.exceptions.SignatureVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.Base64;
+
+/**
+ * Ed25519 signing for JWT tokens ({@code "alg": "EdDSA"}).
+ * <p>
+ * The auth0 library has no EdDSA support, so signatures are created with the JDK {@code Ed25519} provider.
+ * </p>
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+public class EdDSAAlgorithm extends Algorithm {
+
+    private static final String JCA_ALGORITHM = "Ed25519";
+
+    private final PublicKey publicKey;
+    private final PrivateKey privateKey;
+
+    public EdDSAAlgorithm(PublicKey publicKey, PrivateKey privateKey) {
+        super("EdDSA", JCA_ALGORITHM);
+        if (publicKey == null && privateKey == null)
+            throw new IllegalArgumentException("Both provided Keys cannot be null.");
+
+        this.publicKey = publicKey;
+        this.privateKey = privateKey;
+    }
+
+    @Override
+    public void verify(DecodedJWT jwt) throws SignatureVerificationException {
+        try {
+            if (publicKey == null)
+                throw new IllegalStateException("The given Public Key is null.");
+
+            Signature signature = Signature.getInstance(JCA_ALGORITHM);
+            signature.initVerify(publicKey);
+            signature.update((jwt.getHeader() + "." + jwt.getPayload()).getBytes(StandardCharsets.UTF_8));
+            if (!signature.verify(Base64.getUrlDecoder().decode(jwt.getSignature())))
+                throw new SignatureVerificationException(this);
+        } catch (GeneralSecurityException | IllegalStateException | IllegalArgumentException e) {
+            throw new SignatureVerificationException(this, e);
+        }
+    }
+
+    @Override
+    public byte[] sign(byte[] headerBytes, byte[] payloadBytes) throws SignatureGenerationException {
+        try {
+            Signature signature = createSigner();
+            signature.update(headerBytes);
+            signature.update((byte) '.');
+            signature.update(payloadBytes);
+            return signature.sign();
+        } catch (GeneralSecurityException | IllegalStateException e) {
+            throw new SignatureGenerationException(this, e);
+        }
+    }
+
+    @Override
+    @Deprecated
+    public byte[] sign(byte[] contentBytes) throws SignatureGenerationException {
+        try {
+            Signature signature = createSigner();
+            signature.update(contentBytes);
+            return signature.sign();
+        } catch (GeneralSecurityException | IllegalStateException e) {
+            throw new SignatureGenerationException(this, e);
+        }
+    }
+
+    private Signature createSigner() throws GeneralSecurityException {
+        if (privateKey == null)
+            throw new IllegalStateException("The given Private Key is null.");
+
+        Signature signature = Signature.getInstance(JCA_ALGORITHM);
+        signature.initSign(privateKey);
+        return signature;
+    }
+}
@@ -0,0 +1,48 @@
+package de.ecommerce.security.token;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Builds the cookie carrying the refresh token.
+ * <p>
+ * The cookie is HttpOnly, so scripts of the portal cannot read the token, and it is only sent to the
+ * {@code /auth/token} endpoints, not with every request.
+ * </p>
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@Component
+public class RefreshTokenCookies {
+
+    public static final String NAME = "refresh_token";
+    private static final String PATH = "/auth/token";
+
+    private final Duration ttl;
+    private final boolean secure;
+
+    public RefreshTokenCookies(@Value("${refresh-tokens.ttl:14d}") Duration ttl,
+                               @Value("${refresh-tokens.cookie.secure:true}") boolean secure) {
+        this.ttl = ttl;
+        this.secure = secure;
+    }
+
+    public ResponseCookie create(String refreshToken) {
+        return builder(refreshToken).maxAge(ttl).build();
+    }
+
+    public ResponseCookie clear() {
+        return builder("").maxAge(Duration.ZERO).build();
+    }
+
+    private ResponseCookie.ResponseCookieBuilder builder(String value) {
+        return ResponseCookie.from(NAME, value)
+                .httpOnly(true)
+                .secure(secure)
+                .sameSite("Strict")
+                .path(PATH);
+    }
+}
@@ -0,0 +1,47 @@
+package de.ecommerce.security.token;
+
+import com.auth0.jwt.algorithms.Algorithm;
+
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+
+/**
+ * Signing algorithms supported for JWT tokens.
+ * The gateway must be configured with the same algorithm and the matching public key.
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+public enum SigningAlgorithm {
+    RS256("RSA"),
+    ES256("EC"),
+    EDDSA("Ed25519");
+
+    private final String keyAlgorithm;
+
+    SigningAlgorithm(String keyAlgorithm) {
+        this.keyAlgorithm = keyAlgorithm;
+    }
+
+    /**
+     * @return the JCA key algorithm used to parse keys for this signing algorithm
+     */
+    public String getKeyAlgorithm() {
+        return keyAlgorithm;
+    }
+
+    /**
+     * Creates the auth0 {@link Algorithm} for the given keys.
+     * The public key is only needed for verification and may be {@code null} for signing.
+     */
+    public Algorithm createAlgorithm(PublicKey publicKey, PrivateKey privateKey) {
+        return switch (this) {
+            case RS256 -> Algorithm.RSA256((RSAPublicKey) publicKey, (RSAPrivateKey) privateKey);
+            case ES256 -> Algorithm.ECDSA256((ECPublicKey) publicKey, (ECPrivateKey) privateKey);
+            case EDDSA -> new EdDSAAlgorithm(publicKey, privateKey);
+        };
+    }
+}
@@ -0,0 +1,115 @@
+package de.ecommerce.security.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter of strings.
+ * <p>
+ * {@link #mightContain(String)} never returns {@code false} for a value that has been added,
+ * but may return {@code true} for a value that has not been added, with roughly the false positive
+ * rate the filter was created for. Values cannot be removed.
+ * </p>
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+public class BloomFilter {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final AtomicLongArray words;
+    private final long bitSize;
+    private final int hashFunctions;
+
+    private BloomFilter(long bitSize, int hashFunctions) {
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, (bitSize + 63) / 64);
+        this.words = new AtomicLongArray(wordCount);
+        this.bitSize = (long) wordCount * 64;
+        this.hashFunctions = hashFunctions;
+    }
+
+    /**
+     * Creates a filter sized for the expected number of values and the wanted false positive rate.
+     *
+     * @param expectedInsertions the number of values the filter is sized for
+     * @param falsePositiveRate the wanted false positive rate, between 0 and 1
+     * @return an empty filter
+     */
+    public static BloomFilter create(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0)
+            throw new IllegalArgumentException("Expected insertions must be positive");
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1)
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1");
+
+        double ln2 = Math.log(2);
+        long bitSize = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+        int hashFunctions = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * ln2));
+        return new BloomFilter(bitSize, hashFunctions);
+    }
+
+    public void put(String value) {
+        long hash1 = hash(value);
+        long hash2 = mix(hash1 ^ 0x9e3779b97f4a7c15L);
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitSize);
+            long mask = 1L << bit;
+            words.getAndAccumulate((int) (bit >>> 6), mask, (word, m) -> word | m);
+        }
+    }
+
+    public boolean mightContain(String value) {
+        long hash1 = hash(value);
+        long hash2 = mix(hash1 ^ 0x9e3779b97f4a7c15L);
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitSize);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    public long getBitSize() {
+        return bitSize;
+    }
+
+    public int getHashFunctions() {
+        return hashFunctions;
+    }
+
+    /**
+     * @return the memory used by the bit array in bytes
+     */
+    public long getMemoryBytes() {
+        return (long) words.length() * Long.BYTES;
+    }
+
+    /**
+     * Estimates the current false positive rate from the share of bits that are set.
+     * Runs over the whole bit array, so it is meant for metrics, not for the hot path.
+     */
+    public double estimateFalsePositiveRate() {
+        long setBits = 0;
+        for (int i = 0; i < words.length(); i++)
+            setBits += Long.bitCount(words.get(i));
+        return Math.pow((double) setBits / bitSize, hashFunctions);
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the UTF-8 bytes, finished with the SplitMix64 mixer for better bit distribution.
+     */
+    private static long hash(String value) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,143 @@
+package de.ecommerce.security.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel that collects items once their deadline has passed.
+ * <p>
+ * Level 0 has {@code wheelSize} buckets of one tick each, every further level has buckets of the whole span of
+ * the level below. An item is put into the lowest level whose span reaches its deadline; when the time enters the
+ * bucket of a higher level, its items are moved down. Adding an item and advancing by one tick cost O(1) no matter
+ * how many items are scheduled. Items are reported at most one tick after their deadline.
+ * Deadlines beyond the span of the top level wait in an overflow list until they come into range.
+ * </p>
+ * @param <T> the type of the scheduled items
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private record Entry<T>(long deadline, T item) {
+    }
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final long[] levelTicks;
+    private final List<List<Entry<T>>> buckets;
+    private final List<T> expired = new ArrayList<>();
+    private List<Entry<T>> overflow = new ArrayList<>();
+
+    private long currentTime;
+    private int size;
+
+    /**
+     * @param tickMillis the length of a level 0 bucket in milliseconds
+     * @param wheelSize the number of buckets per level
+     * @param levels the number of levels
+     * @param startMillis the current time in milliseconds
+     */
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, int levels, long startMillis) {
+        if (tickMillis <= 0 || wheelSize < 2 || levels < 1)
+            throw new IllegalArgumentException("Invalid timing wheel dimensions");
+
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.levelTicks = new long[levels];
+        this.buckets = new ArrayList<>(levels * wheelSize);
+        long levelTick = tickMillis;
+        for (int level = 0; level < levels; level++) {
+            levelTicks[level] = levelTick;
+            levelTick = Math.multiplyExact(levelTick, wheelSize);
+            for (int bucket = 0; bucket < wheelSize; bucket++)
+                buckets.add(new ArrayList<>());
+        }
+        this.currentTime = startMillis - Math.floorMod(startMillis, tickMillis);
+    }
+
+    /**
+     * Schedules an item. Items whose deadline has already passed are reported by the next {@link #advance(long)}.
+     *
+     * @param deadlineMillis the deadline in milliseconds
+     * @param item the item
+     */
+    public synchronized void add(long deadlineMillis, T item) {
+        size++;
+        place(new Entry<>(deadlineMillis, item));
+    }
+
+    /**
+     * Moves the wheel to the given time.
+     *
+     * @param nowMillis the current time in milliseconds
+     * @return the items whose deadline has passed
+     */
+    public synchronized List<T> advance(long nowMillis) {
+        List<T> result = new ArrayList<>(expired);
+        expired.clear();
+
+        while (currentTime + tickMillis <= nowMillis) {
+            // The tick that starts at currentTime is over, all deadlines in its bucket have passed
+            List<Entry<T>> bucket = bucket(0, currentTime / tickMillis);
+            for (Entry<T> entry : bucket)
+                result.add(entry.item());
+            bucket.clear();
+
+            currentTime += tickMillis;
+            cascade();
+        }
+
+        size -= result.size();
+        return result;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void place(Entry<T> entry) {
+        if (entry.deadline() < currentTime) {
+            expired.add(entry.item());
+            return;
+        }
+
+        for (int level = 0; level < levelTicks.length; level++) {
+            long levelTick = levelTicks[level];
+            long slot = entry.deadline() / levelTick;
+            if (slot - currentTime / levelTick < wheelSize) {
+                bucket(level, slot).add(entry);
+                return;
+            }
+        }
+        overflow.add(entry);
+    }
+
+    /**
+     * Moves the items of the higher level buckets the time has just entered down to the lower levels.
+     */
+    private void cascade() {
+        int top = levelTicks.length - 1;
+        if (currentTime % (levelTicks[top] * wheelSize) == 0 && !overflow.isEmpty()) {
+            List<Entry<T>> waiting = overflow;
+            overflow = new ArrayList<>();
+            waiting.forEach(this::place);
+        }
+
+        for (int level = top; level > 0; level--) {
+            long levelTick = levelTicks[level];
+            if (currentTime % levelTick != 0)
+                continue;
+
+            List<Entry<T>> bucket = bucket(level, currentTime / levelTick);
+            if (bucket.isEmpty())
+                continue;
+            List<Entry<T>> entries = new ArrayList<>(bucket);
+            bucket.clear();
+            entries.forEach(this::place);
+        }
+    }
+
+    private List<Entry<T>> bucket(int level, long slot) {
+        return buckets.get(level * wheelSize + (int) Math.floorMod(slot, (long) wheelSize));
+    }
+}
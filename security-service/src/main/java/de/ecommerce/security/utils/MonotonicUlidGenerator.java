@@ -0,0 +1,90 @@
+package de.ecommerce.security.utils;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Thread-safe generator of monotonic ULIDs.
+ * <p>
+ * A ULID is a 48-bit millisecond timestamp followed by 80 random bits, encoded as 26 characters of
+ * Crockford's base32. The first id of a millisecond gets fresh random bits from {@link ThreadLocalRandom};
+ * every further id of the same millisecond increments the random bits of the previous one. The ids of one
+ * generator are therefore strictly increasing, also across threads, which keeps inserts into an index on the
+ * id at its right edge. The last id is swapped with a compare-and-set, no lock is taken.
+ * If the clock goes back or the random bits of a millisecond overflow, the ids continue from the last one.
+ * The ids are not meant to be unguessable, the random bits only keep the ids of different replicas apart.
+ * </p>
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+public final class MonotonicUlidGenerator {
+
+    private static final MonotonicUlidGenerator SHARED = new MonotonicUlidGenerator();
+
+    private static final char[] ENCODING = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final long RANDOM_HIGH_MASK = 0xFFFFL;
+    private static final long MAX_TIMESTAMP = (1L << 48) - 1;
+
+    /**
+     * @param timestamp the milliseconds since the epoch
+     * @param randomHigh the upper 16 of the 80 random bits
+     * @param randomLow the lower 64 of the 80 random bits
+     */
+    private record Ulid(long timestamp, long randomHigh, long randomLow) {
+    }
+
+    private final AtomicReference<Ulid> last = new AtomicReference<>(new Ulid(0, 0, 0));
+
+    /**
+     * @return the generator shared by the whole application
+     */
+    public static MonotonicUlidGenerator shared() {
+        return SHARED;
+    }
+
+    public String nextUlid() {
+        Ulid next;
+        Ulid previous;
+        do {
+            previous = last.get();
+            next = successor(previous, System.currentTimeMillis());
+        } while (!last.compareAndSet(previous, next));
+        return encode(next);
+    }
+
+    private static Ulid successor(Ulid previous, long now) {
+        if (now > previous.timestamp()) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            return new Ulid(now & MAX_TIMESTAMP, random.nextLong() & RANDOM_HIGH_MASK, random.nextLong());
+        }
+
+        long randomLow = previous.randomLow() + 1;
+        long randomHigh = previous.randomHigh();
+        if (randomLow == 0) {
+            randomHigh = (randomHigh + 1) & RANDOM_HIGH_MASK;
+            if (randomHigh == 0)
+                return new Ulid(previous.timestamp() + 1, 0, 0); // All random bits used up, borrow the next millisecond
+        }
+        return new Ulid(previous.timestamp(), randomHigh, randomLow);
+    }
+
+    private static String encode(Ulid ulid) {
+        char[] chars = new char[26];
+
+        long timestamp = ulid.timestamp();
+        for (int i = 9; i >= 0; i--) {
+            chars[i] = ENCODING[(int) (timestamp & 31)];
+            timestamp >>>= 5;
+        }
+
+        // 80 random bits: 16 high bits, then 64 low bits, 5 bits per character from the most significant end
+        long high = ulid.randomHigh();
+        long low = ulid.randomLow();
+        for (int i = 25; i >= 10; i--) {
+            chars[i] = ENCODING[(int) (low & 31)];
+            low = (low >>> 5) | (high << 59);
+            high >>>= 5;
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,69 @@
+-- personal_user_tokens is partitioned by expiration_date, one partition per day.
+-- Expired tokens are removed by dropping whole partitions, see TokenPartitionMaintenance.
+-- The script runs before Hibernate on every startup and must stay idempotent.
+
+CREATE SEQUENCE IF NOT EXISTS personal_user_tokens_seq INCREMENT BY 50;
+
+CREATE OR REPLACE FUNCTION create_personal_user_tokens_partition(day date) RETURNS void AS $$
+BEGIN
+    EXECUTE format(
+        'CREATE TABLE IF NOT EXISTS %I PARTITION OF personal_user_tokens FOR VALUES FROM (%L) TO (%L)',
+        'personal_user_tokens_p' || to_char(day, 'YYYYMMDD'), day::timestamp, (day + 1)::timestamp);
+EXCEPTION
+    -- Another replica created the same partition concurrently, IF NOT EXISTS does not cover that race
+    WHEN duplicate_table OR unique_violation THEN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+DO $$
+BEGIN
+    -- Move the tokens of the former non-partitioned table into the partitioned one
+    IF EXISTS (SELECT 1 FROM pg_class
+               WHERE relname = 'personal_user_tokens' AND relkind = 'r'
+                 AND relnamespace = current_schema()::regnamespace) THEN
+        ALTER TABLE personal_user_tokens RENAME TO personal_user_tokens_legacy;
+        DROP INDEX IF EXISTS idx_personal_user_tokens_expiration_date;
+    END IF;
+
+    CREATE TABLE IF NOT EXISTS personal_user_tokens (
+        token_id        bigint       NOT NULL,
+        token           varchar(255),
+        expiration_date timestamp(6) NOT NULL,
+        CONSTRAINT pk_personal_user_tokens PRIMARY KEY (token_id, expiration_date)
+    ) PARTITION BY RANGE (expiration_date);
+
+    -- The partition key has to be part of a unique index, so tokens are only indexed, not constrained
+    CREATE INDEX IF NOT EXISTS idx_personal_user_tokens_token ON personal_user_tokens (token);
+    CREATE INDEX IF NOT EXISTS idx_personal_user_tokens_expiration_date ON personal_user_tokens (expiration_date);
+
+    PERFORM create_personal_user_tokens_partition(current_date + days) FROM generate_series(0, 2) AS days;
+
+    IF to_regclass('personal_user_tokens_legacy') IS NOT NULL THEN
+        PERFORM create_personal_user_tokens_partition(day)
+        FROM (SELECT DISTINCT expiration_date::date AS day FROM personal_user_tokens_legacy
+              WHERE expiration_date IS NOT NULL) AS legacy_days;
+
+        INSERT INTO personal_user_tokens (token_id, token, expiration_date)
+        SELECT token_id, token, expiration_date FROM personal_user_tokens_legacy
+        WHERE expiration_date IS NOT NULL;
+
+        PERFORM setval('personal_user_tokens_seq',
+                       greatest((SELECT coalesce(max(token_id), 0) FROM personal_user_tokens), 1));
+
+        UPDATE users SET token_id = NULL
+        WHERE token_id IN (SELECT token_id FROM personal_user_tokens_legacy WHERE expiration_date IS NULL);
+
+        -- Drops the foreign key of users.token_id, tokens are referenced without a constraint now
+        DROP TABLE personal_user_tokens_legacy CASCADE;
+    END IF;
+END
+$$;
+
+-- BCrypt strength calibrated by the first replica, shared by all of them, see PasswordConfig.
+-- Delete the row to calibrate again on the next startup.
+CREATE TABLE IF NOT EXISTS bcrypt_calibration (
+    id                  smallint  PRIMARY KEY CHECK (id = 1),
+    strength            int       NOT NULL,
+    target_hash_time_ms bigint    NOT NULL,
+    calibrated_at       timestamp NOT NULL
+);
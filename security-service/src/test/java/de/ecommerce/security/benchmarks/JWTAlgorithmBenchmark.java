@@ -0,0 +1,87 @@
+package de.ecommerce.security.benchmarks;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import de.ecommerce.security.token.SigningAlgorithm;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares sign and verify ops/sec of the supported {@link SigningAlgorithm}s.
+ * The size of a typical login token is printed for every algorithm in the setup.
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JWTAlgorithmBenchmark {
+
+    @Param({"RS256", "ES256", "EDDSA"})
+    public SigningAlgorithm signingAlgorithm;
+
+    private Algorithm algorithm;
+    private JWTVerifier verifier;
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        KeyPair keyPair = generateKeyPair(signingAlgorithm);
+        algorithm = signingAlgorithm.createAlgorithm(keyPair.getPublic(), keyPair.getPrivate());
+        verifier = JWT.require(algorithm).withIssuer("BUSUIOC-SECURITY").build();
+        token = sign();
+
+        System.out.printf("%n%s token size: %d bytes%n", signingAlgorithm,
+                token.getBytes(StandardCharsets.US_ASCII).length);
+    }
+
+    @Benchmark
+    public String sign() {
+        return JWT.create()
+                .withSubject("User details")
+                .withClaim("username", "benchmark@hessenland.de")
+                .withClaim("role", "CITIZEN")
+                .withClaim("userId", "01JXBENCHMARKUSER000000000")
+                .withIssuedAt(new Date())
+                .withIssuer("BUSUIOC-SECURITY")
+                .withExpiresAt(new Date(System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(30)))
+                .sign(algorithm);
+    }
+
+    @Benchmark
+    public DecodedJWT verify() {
+        return verifier.verify(token);
+    }
+
+    static KeyPair generateKeyPair(SigningAlgorithm signingAlgorithm) throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(signingAlgorithm.getKeyAlgorithm());
+        switch (signingAlgorithm) {
+            case RS256 -> generator.initialize(2048);
+            case ES256 -> generator.initialize(new ECGenParameterSpec("secp256r1"));
+            case EDDSA -> { }
+        }
+        return generator.generateKeyPair();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JWTAlgorithmBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
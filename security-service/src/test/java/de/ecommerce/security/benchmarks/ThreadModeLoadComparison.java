@@ -0,0 +1,204 @@
+package de.ecommerce.security.benchmarks;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares throughput and latency of the security-service on platform threads and on virtual threads.
+ * <p>
+ * For every Hikari pool size the packaged service is started twice, once with
+ * {@code spring.threads.virtual.enabled=false} and once with {@code true}, and loaded by a fixed number of
+ * concurrent clients, each sending its next request as soon as the previous one is answered. After a warmup,
+ * the requests of the measurement period give the throughput and the p50, p99 and maximum latency.
+ * The default request looks up an unknown activation token, which only waits on Postgres, and is answered by the
+ * controller with 403 and {@code Failed to activate user}. Every other response counts as an error, and the
+ * comparison fails if there are any, since the requests then did not take the measured path.
+ * </p>
+ * Build the jar with {@code mvn package -DskipTests}, export the datasource credentials and run the main method
+ * with the jar as argument. Settings, as system properties:
+ * {@code loadtest.pool-sizes} (10,30), {@code loadtest.concurrency} (400), {@code loadtest.warmup} (PT15S),
+ * {@code loadtest.duration} (PT60S), {@code loadtest.port} (18082),
+ * {@code loadtest.path} (/auth/activate-account?token=load-test), {@code loadtest.expected-status} (403) and
+ * {@code loadtest.expected-body} (Failed to activate user).
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+public class ThreadModeLoadComparison {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+    private record Result(boolean virtualThreads, int poolSize, long requests, long errors,
+                          double throughput, long p50Micros, long p99Micros, long maxMicros) {
+    }
+
+    private record Latencies(long[] micros, int count, long errors) {
+    }
+
+    /**
+     * The response of the measured path, anything else was answered elsewhere, e.g. by the security filters.
+     */
+    private record ExpectedResponse(int status, String body) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path jar = Path.of(args.length > 0 ? args[0] : "target/security-0.0.1-SNAPSHOT.jar");
+        if (!Files.isRegularFile(jar))
+            throw new IllegalArgumentException("Service jar not found: " + jar.toAbsolutePath());
+
+        int[] poolSizes = Arrays.stream(System.getProperty("loadtest.pool-sizes", "10,30").split(","))
+                .mapToInt(size -> Integer.parseInt(size.trim()))
+                .toArray();
+        int concurrency = Integer.getInteger("loadtest.concurrency", 400);
+        Duration warmup = Duration.parse(System.getProperty("loadtest.warmup", "PT15S"));
+        Duration duration = Duration.parse(System.getProperty("loadtest.duration", "PT60S"));
+        int port = Integer.getInteger("loadtest.port", 18082);
+        URI target = URI.create("http://localhost:" + port
+                + System.getProperty("loadtest.path", "/auth/activate-account?token=load-test"));
+        ExpectedResponse expected = new ExpectedResponse(Integer.getInteger("loadtest.expected-status", 403),
+                System.getProperty("loadtest.expected-body", "Failed to activate user"));
+
+        List<Result> results = new ArrayList<>();
+        for (int poolSize : poolSizes) {
+            for (boolean virtualThreads : new boolean[]{false, true}) {
+                Process service = start(jar, port, virtualThreads, poolSize);
+                try {
+                    awaitHealthy(port);
+                    run(target, expected, concurrency, warmup);
+                    Latencies latencies = run(target, expected, concurrency, duration);
+                    results.add(summarize(virtualThreads, poolSize, latencies, duration));
+                } finally {
+                    service.destroy();
+                    if (!service.waitFor(30, TimeUnit.SECONDS))
+                        service.destroyForcibly().waitFor();
+                }
+            }
+        }
+
+        System.out.printf("%nconcurrency %d, measured %s per run, %s%n", concurrency, duration, target);
+        System.out.printf("%-9s %5s %10s %8s %12s %10s %10s %10s%n",
+                "threads", "pool", "requests", "errors", "req/s", "p50 ms", "p99 ms", "max ms");
+        for (Result result : results)
+            System.out.printf("%-9s %5d %10d %8d %12.1f %10.2f %10.2f %10.2f%n",
+                    result.virtualThreads() ? "virtual" : "platform", result.poolSize(), result.requests(),
+                    result.errors(), result.throughput(), result.p50Micros() / 1000.0,
+                    result.p99Micros() / 1000.0, result.maxMicros() / 1000.0);
+
+        long errors = results.stream().mapToLong(Result::errors).sum();
+        if (errors > 0)
+            throw new IllegalStateException(errors + " requests did not get " + expected
+                    + ", the results do not measure the intended path");
+    }
+
+    private static Process start(Path jar, int port, boolean virtualThreads, int poolSize) throws IOException {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        return new ProcessBuilder(java, "-jar", jar.toString(),
+                "--server.port=" + port,
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                "--eureka.client.enabled=false")
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+    }
+
+    private static void awaitHealthy(int port) throws InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest health = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/actuator/health")).build();
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                if (client.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200)
+                    return;
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException("Service did not become healthy within " + STARTUP_TIMEOUT);
+    }
+
+    /**
+     * Sends requests from {@code concurrency} clients until the period is over.
+     * The clients run on virtual threads, so the load generator itself never runs out of threads.
+     */
+    private static Latencies run(URI target, ExpectedResponse expected, int concurrency, Duration period)
+            throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(target)
+                .timeout(Duration.ofSeconds(30))
+                .build();
+        long end = System.nanoTime() + period.toNanos();
+
+        List<Future<Latencies>> clients = new ArrayList<>(concurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++)
+                clients.add(executor.submit(() -> load(client, request, expected, end)));
+        }
+
+        List<Latencies> perClient = new ArrayList<>(concurrency);
+        for (Future<Latencies> future : clients)
+            perClient.add(future.get());
+
+        int count = perClient.stream().mapToInt(Latencies::count).sum();
+        long errors = perClient.stream().mapToLong(Latencies::errors).sum();
+        long[] all = new long[count];
+        int offset = 0;
+        for (Latencies latencies : perClient) {
+            System.arraycopy(latencies.micros(), 0, all, offset, latencies.count());
+            offset += latencies.count();
+        }
+        return new Latencies(all, count, errors);
+    }
+
+    private static Latencies load(HttpClient client, HttpRequest request, ExpectedResponse expected, long end)
+            throws InterruptedException {
+        long[] micros = new long[1024];
+        int count = 0;
+        long errors = 0;
+        while (System.nanoTime() < end) {
+            long start = System.nanoTime();
+            try {
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() != expected.status() || !response.body().equals(expected.body()))
+                    errors++;
+            } catch (IOException e) {
+                errors++;
+            }
+            if (count == micros.length)
+                micros = Arrays.copyOf(micros, count * 2);
+            micros[count++] = (System.nanoTime() - start) / 1000;
+        }
+        return new Latencies(micros, count, errors);
+    }
+
+    private static Result summarize(boolean virtualThreads, int poolSize, Latencies latencies, Duration period) {
+        long[] micros = Arrays.copyOf(latencies.micros(), latencies.count());
+        Arrays.sort(micros);
+        return new Result(virtualThreads, poolSize, micros.length, latencies.errors(),
+                micros.length / (period.toMillis() / 1000.0),
+                percentile(micros, 0.50), percentile(micros, 0.99),
+                micros.length == 0 ? 0 : micros[micros.length - 1]);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0)
+            return 0;
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+}
@@ -0,0 +1,104 @@
+package de.ecommerce.security.benchmarks;
+
+import de.ecommerce.security.utils.MonotonicUlidGenerator;
+import de.huxhorn.sulky.ulid.ULID;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Compares a new {@link ULID} per id, as {@code User.init} used to do, with the shared {@link MonotonicUlidGenerator}:
+ * ids/sec on one and on four threads, and rows/sec of batched inserts into a table with the id as primary key,
+ * using an in-memory H2 database. Run with the main method.
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UlidBenchmark {
+
+    private static final int INSERT_BATCH_SIZE = 1000;
+
+    @Benchmark
+    public String newUlidPerId() {
+        return new ULID().nextULID();
+    }
+
+    @Benchmark
+    public String sharedMonotonic() {
+        return MonotonicUlidGenerator.shared().nextUlid();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String newUlidPerIdFourThreads() {
+        return new ULID().nextULID();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String sharedMonotonicFourThreads() {
+        return MonotonicUlidGenerator.shared().nextUlid();
+    }
+
+    @State(Scope.Benchmark)
+    public static class Database {
+
+        @Param({"NEW_ULID_PER_ID", "SHARED_MONOTONIC"})
+        public String generator;
+
+        private Connection connection;
+        private PreparedStatement insert;
+        private Supplier<String> ids;
+
+        @Setup(Level.Trial)
+        public void setUp() throws SQLException {
+            connection = DriverManager.getConnection("jdbc:h2:mem:ulid_" + generator);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("create table users (user_id varchar(26) primary key, email varchar(255))");
+            }
+            insert = connection.prepareStatement("insert into users (user_id, email) values (?, ?)");
+            ids = generator.equals("SHARED_MONOTONIC")
+                    ? MonotonicUlidGenerator.shared()::nextUlid
+                    : () -> new ULID().nextULID();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws SQLException {
+            connection.close();
+        }
+    }
+
+    /**
+     * Inserts one JDBC batch, the score times {@value #INSERT_BATCH_SIZE} is the number of rows per second.
+     */
+    @Benchmark
+    public int[] insertBatch(Database database) throws SQLException {
+        for (int i = 0; i < INSERT_BATCH_SIZE; i++) {
+            database.insert.setString(1, database.ids.get());
+            database.insert.setString(2, "citizen" + i + "@hessenland.de");
+            database.insert.addBatch();
+        }
+        return database.insert.executeBatch();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(UlidBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,83 @@
+package de.ecommerce.security.benchmarks;
+
+import de.ecommerce.security.dto.CitizenUserDTO;
+import de.ecommerce.security.dto.RegistrationDTO;
+import de.ecommerce.security.mappers.UserMapper;
+import de.ecommerce.security.models.User;
+import de.ecommerce.security.models.enums.Gender;
+import de.ecommerce.security.models.enums.Role;
+import org.mapstruct.factory.Mappers;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the two mappings of a registration done by a {@link ModelMapper}, as {@code AuthService} used to do,
+ * with the generated {@link UserMapper}. Run with the main method, add {@code -prof gc} to the options to see
+ * the allocations per mapping.
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserMappingBenchmark {
+
+    private ModelMapper modelMapper;
+    private UserMapper userMapper;
+    private RegistrationDTO registration;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        userMapper = Mappers.getMapper(UserMapper.class);
+
+        registration = new RegistrationDTO("citizen@hessenland.de", "Secret123", "Anna", "Schmidt",
+                "T22000129", LocalDate.of(1990, 5, 17), Gender.FEMALE);
+
+        user = userMapper.toUser(registration);
+        user.setUserId("01JABCDEFGHJKMNPQRSTVWXYZ0");
+        user.setCreationDate(LocalDateTime.now());
+        user.setRole(Role.CITIZEN);
+        // Registers the type maps, as the first registration after startup does
+        modelMapper.map(modelMapper.map(registration, User.class), CitizenUserDTO.class);
+    }
+
+    @Benchmark
+    public User modelMapperToUser() {
+        return modelMapper.map(registration, User.class);
+    }
+
+    @Benchmark
+    public User generatedToUser() {
+        return userMapper.toUser(registration);
+    }
+
+    @Benchmark
+    public CitizenUserDTO modelMapperToCitizenUserDTO() {
+        return modelMapper.map(user, CitizenUserDTO.class);
+    }
+
+    @Benchmark
+    public CitizenUserDTO generatedToCitizenUserDTO() {
+        return userMapper.toCitizenUserDTO(user);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(UserMappingBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,92 @@
+package de.ecommerce.security.config;
+
+import de.ecommerce.security.services.PrimaryPinning;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the routing with two in-memory H2 databases standing in for the primary and the replica.
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private static final String EMAIL = "citizen@hessenland.de";
+    private static final String NODE_QUERY = "SELECT name FROM node";
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate writeTransaction;
+    private TransactionTemplate readOnlyTransaction;
+
+    @BeforeEach
+    void setUp() {
+        DataSource routing = new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(database("primary"), database("replica")));
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+        jdbcTemplate = new JdbcTemplate(routing);
+        writeTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Test
+    void readOnlyTransactionsUseTheReplica() {
+        assertThat(readOnlyTransaction.execute(status -> currentNode())).isEqualTo("replica");
+    }
+
+    @Test
+    void writeTransactionsAndPlainCallsUseThePrimary() {
+        assertThat(writeTransaction.execute(status -> currentNode())).isEqualTo("primary");
+        assertThat(currentNode()).isEqualTo("primary");
+    }
+
+    @Test
+    void forcedReadOnlyTransactionsUseThePrimary() {
+        try (var scope = ReplicaRoutingDataSource.forcePrimary()) {
+            assertThat(readOnlyTransaction.execute(status -> currentNode())).isEqualTo("primary");
+        }
+        assertThat(readOnlyTransaction.execute(status -> currentNode())).isEqualTo("replica");
+    }
+
+    @Test
+    void pinnedUsersReadFromThePrimaryUntilTheWindowEnds() throws InterruptedException {
+        PrimaryPinning primaryPinning = new PrimaryPinning(Duration.ofMillis(200), 100);
+        primaryPinning.pin(EMAIL);
+
+        try (var scope = primaryPinning.routeFor(EMAIL)) {
+            assertThat(readOnlyTransaction.execute(status -> currentNode())).isEqualTo("primary");
+        }
+        try (var scope = primaryPinning.routeFor("other@hessenland.de")) {
+            assertThat(readOnlyTransaction.execute(status -> currentNode())).isEqualTo("replica");
+        }
+
+        Thread.sleep(300);
+        try (var scope = primaryPinning.routeFor(EMAIL)) {
+            assertThat(readOnlyTransaction.execute(status -> currentNode())).isEqualTo("replica");
+        }
+    }
+
+    private String currentNode() {
+        return jdbcTemplate.queryForObject(NODE_QUERY, String.class);
+    }
+
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS node (name VARCHAR(16))");
+        jdbcTemplate.execute("DELETE FROM node");
+        jdbcTemplate.update("INSERT INTO node (name) VALUES (?)", name);
+        return dataSource;
+    }
+}
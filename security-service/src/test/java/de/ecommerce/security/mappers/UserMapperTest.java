@@ -0,0 +1,111 @@
+package de.ecommerce.security.mappers;
+
+import de.ecommerce.security.dto.CitizenUserDTO;
+import de.ecommerce.security.dto.RegistrationDTO;
+import de.ecommerce.security.models.PersonalUserToken;
+import de.ecommerce.security.models.User;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Fills every field of the source with a distinct value and checks that it arrives in the field of the same name.
+ * A field added to one side only fails here until it is mapped or listed as deliberately not mapped.
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+class UserMapperTest {
+
+    // User fields the registration does not provide, they are assigned by the service or on persist
+    private static final Set<String> NOT_FROM_REGISTRATION = Set.of("userId", "creationDate", "isActive", "role", "token");
+
+    // User fields that must never leave the security-service
+    private static final Set<String> NOT_SENT_TO_USER_SERVICE = Set.of("password", "token");
+
+    private final UserMapper userMapper = Mappers.getMapper(UserMapper.class);
+
+    @Test
+    void mapsEveryRegistrationFieldToTheUser() throws IllegalAccessException {
+        RegistrationDTO registration = fill(new RegistrationDTO());
+
+        User user = userMapper.toUser(registration);
+
+        assertMapped(registration, user, Set.of(), NOT_FROM_REGISTRATION);
+    }
+
+    @Test
+    void mapsEveryUserFieldToTheCitizenUserDTO() throws IllegalAccessException {
+        User user = fill(new User());
+
+        CitizenUserDTO citizen = userMapper.toCitizenUserDTO(user);
+
+        assertMapped(user, citizen, NOT_SENT_TO_USER_SERVICE, Set.of());
+    }
+
+    /**
+     * Apart from the listed exceptions, source and target must have the same fields with the same values.
+     */
+    private static void assertMapped(Object source, Object target, Set<String> sourceOnly, Set<String> targetOnly)
+            throws IllegalAccessException {
+        Map<String, Field> sourceFields = fields(source.getClass()).stream()
+                .filter(field -> !sourceOnly.contains(field.getName()))
+                .collect(Collectors.toMap(Field::getName, Function.identity()));
+        Map<String, Field> targetFields = fields(target.getClass()).stream()
+                .filter(field -> !targetOnly.contains(field.getName()))
+                .collect(Collectors.toMap(Field::getName, Function.identity()));
+
+        assertThat(targetFields.keySet())
+                .as("Fields of %s and %s that are not mapped", source.getClass().getSimpleName(),
+                        target.getClass().getSimpleName())
+                .containsExactlyInAnyOrderElementsOf(sourceFields.keySet());
+
+        for (Field targetField : targetFields.values())
+            assertThat(targetField.get(target))
+                    .as("%s.%s", target.getClass().getSimpleName(), targetField.getName())
+                    .isEqualTo(sourceFields.get(targetField.getName()).get(source));
+    }
+
+    private static <T> T fill(T object) throws IllegalAccessException {
+        for (Field field : fields(object.getClass()))
+            field.set(object, sampleValue(field));
+        return object;
+    }
+
+    private static Object sampleValue(Field field) {
+        Class<?> type = field.getType();
+        if (type == String.class)
+            return field.getName() + "-value";
+        if (type == boolean.class)
+            return true;
+        if (type == LocalDate.class)
+            return LocalDate.of(1990, 5, 17);
+        if (type == LocalDateTime.class)
+            return LocalDateTime.of(2026, 10, 18, 12, 30);
+        if (type.isEnum()) {
+            Object[] constants = type.getEnumConstants();
+            return constants[constants.length - 1];
+        }
+        if (type == PersonalUserToken.class)
+            return new PersonalUserToken();
+        throw new IllegalStateException("No sample value for " + field + ", add one to the test");
+    }
+
+    private static List<Field> fields(Class<?> type) {
+        return Arrays.stream(type.getDeclaredFields())
+                .filter(field -> !Modifier.isStatic(field.getModifiers()))
+                .peek(field -> field.setAccessible(true))
+                .toList();
+    }
+}
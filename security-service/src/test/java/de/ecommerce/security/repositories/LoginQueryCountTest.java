@@ -0,0 +1,77 @@
+package de.ecommerce.security.repositories;
+
+import de.ecommerce.security.models.PersonalUserToken;
+import de.ecommerce.security.models.User;
+import de.ecommerce.security.models.UserCredentials;
+import de.ecommerce.security.models.enums.Role;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counts the SQL statements and loaded entities of the login lookup.
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class LoginQueryCountTest {
+
+    private static final String EMAIL = "citizen@hessenland.de";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setEmail(EMAIL);
+        user.setPassword("$2a$08$abcdefghijklmnopqrstuuN5Vd2Yh0Xo0dQ2N4XbZcOEpOE2Cj4vS");
+        user.setRole(Role.CITIZEN);
+        user.setToken(new PersonalUserToken("activation-token", user));
+        entityManager.persistAndFlush(user);
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void credentialsLookupRunsOneStatementWithoutLoadingEntities() {
+        Optional<UserCredentials> credentials = userRepository.findCredentialsByEmail(EMAIL);
+
+        assertThat(credentials).isPresent();
+        assertThat(credentials.get().getRole()).isEqualTo(Role.CITIZEN);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void entityLookupDoesNotJoinTheToken() {
+        Optional<User> user = userRepository.findByEmail(EMAIL);
+
+        assertThat(user).isPresent();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(1);
+    }
+}
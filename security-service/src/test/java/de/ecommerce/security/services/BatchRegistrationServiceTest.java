@@ -0,0 +1,204 @@
+package de.ecommerce.security.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.ecommerce.security.config.BoundedPasswordEncoder;
+import de.ecommerce.security.dto.BatchRegistrationError;
+import de.ecommerce.security.dto.BatchRegistrationResult;
+import de.ecommerce.security.repositories.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Row handling of the batch registration, for a JSON array and for newline delimited JSON. The database is
+ * replaced by stubs: the users table is a set of emails, and the insert returns the emails it did not contain.
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+class BatchRegistrationServiceTest {
+
+    private static final String EXISTING = "existing@hessenland.de";
+    // Registered by another request after the existence lookup, only the insert finds it
+    private static final String CONCURRENT = "concurrent@hessenland.de";
+
+    private static final List<String> ROWS = List.of(
+            registration("first@hessenland.de", "Password1"),
+            registration("not-an-email", "short"),
+            registration("first@hessenland.de", "Password1"),
+            "{\"email\": \"gender@hessenland.de\", \"password\": \"Password1\", \"firstName\": \"Anna\", " +
+                    "\"lastName\": \"Schmidt\", \"gender\": \"UNKNOWN\"}",
+            registration(EXISTING, "Password1"),
+            registration(CONCURRENT, "Password1"),
+            registration("second@hessenland.de", "Password1"));
+
+    private final Set<String> users = new HashSet<>(Set.of(EXISTING, CONCURRENT));
+    private final List<Integer> tokenBatches = new ArrayList<>();
+    private final List<Long> scheduledTokenIds = new ArrayList<>();
+    private final List<OutboxService.Message> messages = new ArrayList<>();
+    private final PasswordHashingExecutor hashingExecutor = new PasswordHashingExecutor(2, 16, new SimpleMeterRegistry());
+    private final BatchRegistrationService service = createService();
+
+    @AfterEach
+    void tearDown() {
+        hashingExecutor.shutdown();
+    }
+
+    @Test
+    void registersTheValidRowsOfAJsonArray() throws IOException {
+        BatchRegistrationResult result = service.register(body("[" + String.join(",\n", ROWS) + "]"));
+
+        assertRegisteredTheValidRows(result);
+    }
+
+    @Test
+    void registersTheValidRowsOfNewlineDelimitedJson() throws IOException {
+        BatchRegistrationResult result = service.register(body(String.join("\n", ROWS)));
+
+        assertRegisteredTheValidRows(result);
+    }
+
+    @Test
+    void reportsTheRowsAfterMalformedJsonAsNotRead() throws IOException {
+        BatchRegistrationResult result = service.register(body(ROWS.get(0) + "\n{\"email\": "));
+
+        assertThat(result.getTotal()).isEqualTo(1);
+        assertThat(result.getRegistered()).isEqualTo(1);
+        assertThat(result.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getRow()).isEqualTo(1);
+            assertThat(error.getMessage()).startsWith("Malformed JSON, the remaining rows were not read");
+        });
+    }
+
+    private void assertRegisteredTheValidRows(BatchRegistrationResult result) {
+        assertThat(result.getTotal()).isEqualTo(ROWS.size());
+        assertThat(result.getRegistered()).isEqualTo(2);
+        // An unreadable entry is reported while reading, the other errors when its chunk is registered
+        List<BatchRegistrationError> errors = result.getErrors().stream()
+                .sorted(Comparator.comparingInt(BatchRegistrationError::getRow))
+                .toList();
+        assertThat(errors).extracting(BatchRegistrationError::getRow).containsExactly(1, 2, 3, 4, 5);
+        assertThat(errors.get(0).getMessage()).isEqualTo("Email should have a valid format - \"mail@gmail.com\"\n" +
+                "Password must be at least 8 characters long and contain at least one uppercase letter and one digit");
+        assertThat(errors.get(1).getMessage()).isEqualTo("The email appears more than once in the batch.");
+        assertThat(errors.get(2).getMessage()).startsWith("Invalid entry:");
+        assertThat(errors.get(3).getMessage()).isEqualTo("A user with this email already exists.");
+        assertThat(errors.get(4).getMessage()).isEqualTo("A user with this email already exists.");
+
+        assertThat(users).contains("first@hessenland.de", "second@hessenland.de").hasSize(4);
+        // Only the inserted users get a token, an expiry and their events
+        assertThat(tokenBatches).containsExactly(1, 1);
+        assertThat(scheduledTokenIds).hasSize(2).doesNotHaveDuplicates();
+        assertThat(messages).extracting(OutboxService.Message::topic)
+                .containsExactly("email-events", "user-sending-events", "email-events", "user-sending-events");
+    }
+
+    private BatchRegistrationService createService() {
+        UserRepository userRepository = (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("findExistingEmails"))
+                        throw new UnsupportedOperationException(method.getName());
+                    @SuppressWarnings("unchecked")
+                    Collection<String> emails = (Collection<String>) args[0];
+                    return emails.stream().filter(EXISTING::equals).toList();
+                });
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate() {
+            private long tokenIdBlockEnd;
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> List<T> queryForList(String sql, Class<T> elementType, Object... args) {
+                List<Object> rows = new ArrayList<>();
+                if (sql.contains("nextval")) {
+                    for (int block = 0; block < (Integer) args[0]; block++)
+                        rows.add(tokenIdBlockEnd += 50);
+                } else {
+                    for (String email : (String[]) args[3]) {
+                        if (users.add(email))
+                            rows.add(email);
+                    }
+                }
+                return (List<T>) rows;
+            }
+
+            @Override
+            public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                                           ParameterizedPreparedStatementSetter<T> pss) {
+                if (!sql.startsWith("insert into personal_user_tokens"))
+                    throw new UnsupportedOperationException(sql);
+                tokenBatches.add(batchArgs.size());
+                return new int[0][];
+            }
+        };
+
+        PlatformTransactionManager transactionManager = new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definition) {
+                return new SimpleTransactionStatus();
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) {
+            }
+        };
+
+        OutboxService outboxService = new OutboxService(null, null) {
+            @Override
+            public void enqueueAll(List<Message> enqueued) {
+                messages.addAll(enqueued);
+            }
+        };
+
+        TokenExpiryScheduler tokenExpiryScheduler = new TokenExpiryScheduler(null, null, transactionManager,
+                new SimpleMeterRegistry(), Duration.ofSeconds(1), 100) {
+            @Override
+            public void schedule(Long tokenId, LocalDateTime expirationDate) {
+                scheduledTokenIds.add(tokenId);
+            }
+        };
+
+        // Chunks of 2 rows, so the duplicate of the first row is found in a later chunk
+        return new BatchRegistrationService(new ObjectMapper().findAndRegisterModules(),
+                Validation.buildDefaultValidatorFactory().getValidator(), userRepository,
+                new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), hashingExecutor), jdbcTemplate,
+                transactionManager, outboxService,
+                new RegisteredEmailFilter(userRepository, 1000, 0.01, new SimpleMeterRegistry()),
+                tokenExpiryScheduler, hashingExecutor, 2, 100, 2);
+    }
+
+    private static String registration(String email, String password) {
+        return "{\"email\": \"" + email + "\", \"password\": \"" + password + "\", " +
+                "\"firstName\": \"Anna\", \"lastName\": \"Schmidt\"}";
+    }
+
+    private static ByteArrayInputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,101 @@
+package de.ecommerce.security.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Bulk hashing on the password hashing pool: result order, the parallelism limit and a full queue.
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+class PasswordHashingExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PasswordHashingExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void executeAllReturnsTheResultsInTheOrderOfTheTasks() {
+        executor = new PasswordHashingExecutor(4, 16, meterRegistry);
+        List<Supplier<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            int task = i;
+            // Later tasks finish first
+            tasks.add(() -> {
+                sleep(20 - task);
+                return task;
+            });
+        }
+
+        assertThat(executor.executeAll(tasks, 8)).containsExactlyElementsOf(IntStream.range(0, 20).boxed().toList());
+    }
+
+    @Test
+    void executeAllRunsAtMostParallelismTasksAtATime() {
+        executor = new PasswordHashingExecutor(4, 16, meterRegistry);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Supplier<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            tasks.add(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(5);
+                return running.decrementAndGet();
+            });
+        }
+
+        executor.executeAll(tasks, 2);
+
+        assertThat(maxRunning.get()).isBetween(1, 2);
+    }
+
+    @Test
+    void executeAllWaitsForRoomInAFullQueueInsteadOfRejecting() {
+        executor = new PasswordHashingExecutor(1, 1, meterRegistry);
+        List<Supplier<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            int task = i;
+            tasks.add(() -> {
+                sleep(5);
+                return task;
+            });
+        }
+
+        assertThat(executor.executeAll(tasks, 5)).hasSize(10);
+        assertThat(meterRegistry.get("password.hashing.rejected").counter().count()).isZero();
+    }
+
+    @Test
+    void executeAllRethrowsTheFailureOfATask() {
+        executor = new PasswordHashingExecutor(2, 16, meterRegistry);
+        List<Supplier<String>> tasks = List.of(() -> "hash", () -> {
+            throw new IllegalArgumentException("Invalid password");
+        });
+
+        assertThatThrownBy(() -> executor.executeAll(tasks, 2))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid password");
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package de.ecommerce.security.services;
+
+import de.ecommerce.security.dto.AuthTokens;
+import de.ecommerce.security.exceptions.InvalidRefreshTokenException;
+import de.ecommerce.security.models.RefreshToken;
+import de.ecommerce.security.models.User;
+import de.ecommerce.security.models.UserCredentials;
+import de.ecommerce.security.models.enums.Role;
+import de.ecommerce.security.repositories.RefreshTokenRepository;
+import de.ecommerce.security.repositories.UserRepository;
+import de.ecommerce.security.token.JWTUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Rotation and reuse detection of the refresh tokens against the database. The tests run without a test
+ * transaction, every call of the service commits as in production.
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never"
+})
+@Import(RefreshTokenServiceTest.Config.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RefreshTokenServiceTest {
+
+    // Runs inside the transaction of a refresh, after the token has been marked as used
+    private static final AtomicReference<Runnable> BEFORE_ISSUE = new AtomicReference<>();
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        RefreshTokenService refreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                                                PlatformTransactionManager transactionManager) {
+            JWTUtils jwtUtils = new JWTUtils(null, null) {
+                @Override
+                public String generateToken(UserCredentials user) {
+                    Runnable hook = BEFORE_ISSUE.getAndSet(null);
+                    if (hook != null)
+                        hook.run();
+                    return "access-token-" + user.getUserId();
+                }
+            };
+            return new RefreshTokenService(refreshTokenRepository, jwtUtils, new ScheduledJobLock(null, null),
+                    transactionManager, new SimpleMeterRegistry(), Duration.ofDays(14), Duration.ofDays(7));
+        }
+    }
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private UserCredentials credentials;
+
+    @BeforeEach
+    void setUp() {
+        credentials = UserCredentials.from(saveUser("citizen@hessenland.de", true));
+    }
+
+    @AfterEach
+    void tearDown() {
+        BEFORE_ISSUE.set(null);
+        refreshTokenRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void refreshRotatesTheToken() {
+        String first = refreshTokenService.issue(credentials);
+
+        AuthTokens tokens = refreshTokenService.refresh(first);
+        AuthTokens next = refreshTokenService.refresh(tokens.refreshToken());
+
+        assertThat(tokens.accessToken()).isEqualTo("access-token-" + credentials.getUserId());
+        assertThat(tokens.refreshToken()).isNotEqualTo(first);
+        assertThat(next.refreshToken()).isNotIn(first, tokens.refreshToken());
+        List<RefreshToken> family = refreshTokenRepository.findAll();
+        assertThat(family).hasSize(3).extracting(RefreshToken::getFamilyId).containsOnly(family.get(0).getFamilyId());
+        assertThat(family).filteredOn(token -> token.getUsedAt() != null).hasSize(2);
+        assertThat(family).allMatch(token -> token.getRevokedAt() == null);
+    }
+
+    @Test
+    void reusedTokenRevokesTheWholeFamily() {
+        String first = refreshTokenService.issue(credentials);
+        AuthTokens tokens = refreshTokenService.refresh(first);
+
+        assertThatThrownBy(() -> refreshTokenService.refresh(first))
+                .isInstanceOf(InvalidRefreshTokenException.class)
+                .hasMessage("Refresh token has already been used");
+
+        // Committed although the refresh failed
+        assertThat(refreshTokenRepository.findAll()).allMatch(token -> token.getRevokedAt() != null);
+        assertThatThrownBy(() -> refreshTokenService.refresh(tokens.refreshToken()))
+                .isInstanceOf(InvalidRefreshTokenException.class)
+                .hasMessage("Refresh token has been revoked");
+    }
+
+    @Test
+    void concurrentRefreshesWithOneTokenCountAsReuse() throws Exception {
+        String token = refreshTokenService.issue(credentials);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AtomicReference<Future<AuthTokens>> concurrent = new AtomicReference<>();
+        // The second refresh finds the token before the first commits, its markUsed finds it used
+        BEFORE_ISSUE.set(() -> {
+            concurrent.set(executor.submit(() -> refreshTokenService.refresh(token)));
+            try {
+                concurrent.get().get(200, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException | ExecutionException e) {
+                // Waits for the row lock of the first refresh, or has already been rejected
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        try {
+            AuthTokens winner = refreshTokenService.refresh(token);
+
+            assertThatThrownBy(() -> concurrent.get().get(10, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(InvalidRefreshTokenException.class)
+                    .hasMessageContaining("Refresh token has already been used");
+            assertThatThrownBy(() -> refreshTokenService.refresh(winner.refreshToken()))
+                    .isInstanceOf(InvalidRefreshTokenException.class)
+                    .hasMessage("Refresh token has been revoked");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void expiredTokenIsRejected() {
+        String token = refreshTokenService.issue(credentials);
+        RefreshToken stored = refreshTokenRepository.findAll().get(0);
+        stored.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        refreshTokenRepository.save(stored);
+
+        assertThatThrownBy(() -> refreshTokenService.refresh(token))
+                .isInstanceOf(InvalidRefreshTokenException.class)
+                .hasMessage("Refresh token has expired");
+    }
+
+    @Test
+    void revokedTokenIsRejected() {
+        String token = refreshTokenService.issue(credentials);
+        refreshTokenService.revoke(token);
+
+        assertThatThrownBy(() -> refreshTokenService.refresh(token))
+                .isInstanceOf(InvalidRefreshTokenException.class)
+                .hasMessage("Refresh token has been revoked");
+    }
+
+    @Test
+    void tokenOfAnInactiveUserIsRejected() {
+        UserCredentials inactive = UserCredentials.from(saveUser("inactive@hessenland.de", false));
+        String token = refreshTokenService.issue(inactive);
+
+        assertThatThrownBy(() -> refreshTokenService.refresh(token))
+                .isInstanceOf(InvalidRefreshTokenException.class)
+                .hasMessage("User is not active");
+    }
+
+    @Test
+    void revokeAllEndsEverySessionOfTheUser() {
+        String firstSession = refreshTokenService.issue(credentials);
+        String secondSession = refreshTokenService.issue(credentials);
+        UserCredentials other = UserCredentials.from(saveUser("other@hessenland.de", true));
+        String otherSession = refreshTokenService.issue(other);
+
+        refreshTokenService.revokeAll(credentials.getUserId());
+
+        assertThatThrownBy(() -> refreshTokenService.refresh(firstSession))
+                .isInstanceOf(InvalidRefreshTokenException.class);
+        assertThatThrownBy(() -> refreshTokenService.refresh(secondSession))
+                .isInstanceOf(InvalidRefreshTokenException.class);
+        assertThat(refreshTokenService.refresh(otherSession).refreshToken()).isNotNull();
+    }
+
+    private User saveUser(String email, boolean active) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword("$2a$10$abcdefghijklmnopqrstuuN5Vd2Yh0Xo0dQ2N4XbZcOEpOE2Cj4vS");
+        user.setRole(Role.CITIZEN);
+        user.setActive(active);
+        return userRepository.save(user);
+    }
+}
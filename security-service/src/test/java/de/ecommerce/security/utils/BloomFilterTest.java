@@ -0,0 +1,77 @@
+package de.ecommerce.security.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Checks that added values are always found and that the false positive rate stays near the one the filter
+ * was sized for.
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+class BloomFilterTest {
+
+    private static final int INSERTIONS = 10_000;
+    private static final int PROBES = 100_000;
+
+    @ParameterizedTest
+    @ValueSource(doubles = {0.01, 0.001})
+    void findsEveryAddedValueAndKeepsTheFalsePositiveRate(double falsePositiveRate) {
+        BloomFilter filter = BloomFilter.create(INSERTIONS, falsePositiveRate);
+        for (int i = 0; i < INSERTIONS; i++)
+            filter.put("user" + i + "@hessenland.de");
+
+        for (int i = 0; i < INSERTIONS; i++)
+            assertThat(filter.mightContain("user" + i + "@hessenland.de")).isTrue();
+
+        int falsePositives = 0;
+        for (int i = 0; i < PROBES; i++) {
+            if (filter.mightContain("other" + i + "@hessenland.de"))
+                falsePositives++;
+        }
+        assertThat((double) falsePositives / PROBES).isCloseTo(falsePositiveRate, within(falsePositiveRate / 2));
+        assertThat(filter.estimateFalsePositiveRate()).isCloseTo(falsePositiveRate, within(falsePositiveRate / 2));
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        BloomFilter filter = BloomFilter.create(INSERTIONS, 0.01);
+
+        assertThat(filter.mightContain("user@hessenland.de")).isFalse();
+        assertThat(filter.mightContain("")).isFalse();
+        assertThat(filter.estimateFalsePositiveRate()).isZero();
+    }
+
+    @Test
+    void filterForOneValueUsesOneWord() {
+        BloomFilter filter = BloomFilter.create(1, 0.01);
+        filter.put("user@hessenland.de");
+
+        assertThat(filter.mightContain("user@hessenland.de")).isTrue();
+        assertThat(filter.getBitSize()).isEqualTo(64);
+        assertThat(filter.getMemoryBytes()).isEqualTo(Long.BYTES);
+        assertThat(filter.getHashFunctions()).isEqualTo(7);
+    }
+
+    @Test
+    void rejectsAFilterForNoValues() {
+        assertThatThrownBy(() -> BloomFilter.create(0, 0.01))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Expected insertions must be positive");
+        assertThatThrownBy(() -> BloomFilter.create(-1, 0.01))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @ParameterizedTest
+    @ValueSource(doubles = {0, 1, -0.5, 1.5})
+    void rejectsAFalsePositiveRateOutsideZeroAndOne(double falsePositiveRate) {
+        assertThatThrownBy(() -> BloomFilter.create(INSERTIONS, falsePositiveRate))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("False positive rate must be between 0 and 1");
+    }
+}
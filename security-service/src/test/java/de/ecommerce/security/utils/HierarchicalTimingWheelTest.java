@@ -0,0 +1,88 @@
+package de.ecommerce.security.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that items are reported within one tick after their deadline, never before, on every level of the wheel.
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+class HierarchicalTimingWheelTest {
+
+    // 10 ms ticks and 4 buckets: level 0 spans 40 ms, level 1 160 ms, level 2 640 ms
+    private static final long TICK = 10;
+    private static final int WHEEL_SIZE = 4;
+
+    @Test
+    void reportsItemsOfLevelZeroAfterTheirTick() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, WHEEL_SIZE, 2, 0);
+        wheel.add(25, "token");
+
+        assertThat(wheel.advance(29)).isEmpty();
+        assertThat(wheel.advance(30)).containsExactly("token");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void cascadesFromLevelOneToLevelZero() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, WHEEL_SIZE, 2, 0);
+        wheel.add(95, "token");
+
+        assertThat(wheel.advance(80)).isEmpty();
+        assertThat(wheel.advance(99)).isEmpty();
+        assertThat(wheel.advance(100)).containsExactly("token");
+    }
+
+    @Test
+    void cascadesFromLevelTwoThroughLevelOne() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, WHEEL_SIZE, 3, 0);
+        wheel.add(505, "token");
+        wheel.add(170, "earlier");
+
+        assertThat(wheel.advance(180)).containsExactly("earlier");
+        assertThat(wheel.advance(480)).isEmpty();
+        assertThat(wheel.advance(509)).isEmpty();
+        assertThat(wheel.advance(510)).containsExactly("token");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void reportsPastDeadlinesOnTheNextAdvance() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, WHEEL_SIZE, 2, 0);
+        wheel.advance(100);
+
+        wheel.add(50, "expired");
+        wheel.add(-1000, "long expired");
+        wheel.add(105, "current tick");
+
+        assertThat(wheel.size()).isEqualTo(3);
+        assertThat(wheel.advance(100)).containsExactlyInAnyOrder("expired", "long expired");
+        assertThat(wheel.advance(110)).containsExactly("current tick");
+    }
+
+    @Test
+    void keepsDeadlinesBeyondTheTopLevelUntilTheyComeIntoRange() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, WHEEL_SIZE, 2, 0);
+        wheel.add(1005, "overflow");
+        wheel.add(5000, "far overflow");
+
+        assertThat(wheel.size()).isEqualTo(2);
+        assertThat(wheel.advance(1009)).isEmpty();
+        assertThat(wheel.advance(1010)).containsExactly("overflow");
+        assertThat(wheel.advance(4999)).isEmpty();
+        assertThat(wheel.advance(5010)).containsExactly("far overflow");
+    }
+
+    @Test
+    void reportsEverythingPassedInOneLargeAdvance() {
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(TICK, WHEEL_SIZE, 2, 0);
+        for (int deadline = 0; deadline < 2000; deadline += 7)
+            wheel.add(deadline, deadline);
+
+        assertThat(wheel.advance(1000)).hasSize(143).allMatch(deadline -> deadline < 1000);
+        assertThat(wheel.advance(2000)).hasSize(143).allMatch(deadline -> deadline >= 1000);
+        assertThat(wheel.size()).isZero();
+    }
+}
@@ -0,0 +1,61 @@
+package de.ecommerce.user.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+import java.time.Duration;
+
+/**
+ * Instruments the Spring Data repositories, replacing {@code show-sql}.
+ * Every repository proxy gets a {@link RepositoryMetricsInterceptor}, which uses the statement counts of the
+ * {@link SqlStatementCounter} registered as Hibernate statement inspector.
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+@Configuration
+public class RepositoryMetricsConfig {
+
+    @Bean
+    public SqlStatementCounter sqlStatementCounter(MeterRegistry meterRegistry) {
+        return new SqlStatementCounter(meterRegistry);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer statementCounterCustomizer(SqlStatementCounter sqlStatementCounter) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, sqlStatementCounter);
+    }
+
+    /**
+     * Static and with lazy dependencies, so the post processor does not initialize beans early.
+     */
+    @Bean
+    public static BeanPostProcessor repositoryMetricsPostProcessor(ObjectProvider<SqlStatementCounter> statementCounter,
+                                                                   ObjectProvider<MeterRegistry> meterRegistry,
+                                                                   Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    Duration slowThreshold = environment.getProperty("repository.slow-query.threshold",
+                            Duration.class, Duration.ofMillis(200));
+                    double sampleRate = environment.getProperty("repository.slow-query.sample-rate",
+                            Double.class, 1.0);
+
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(
+                                    new RepositoryMetricsInterceptor(repositoryInformation.getRepositoryInterface(),
+                                            statementCounter.getObject(), meterRegistry.getObject(),
+                                            slowThreshold, sampleRate))));
+                }
+                return bean;
+            }
+        };
+    }
+}
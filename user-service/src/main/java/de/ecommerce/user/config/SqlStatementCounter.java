@@ -0,0 +1,94 @@
+package de.ecommerce.user.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Counts the SQL statements Hibernate prepares, per thread and per transaction.
+ * <p>
+ * The count of the thread lets {@link RepositoryMetricsInterceptor} attribute statements to a repository method.
+ * The count of a Spring transaction is recorded in {@code db.transaction.statements} when it completes, a nested
+ * {@code REQUIRES_NEW} transaction is counted on its own. Statements of the {@code JdbcTemplate} are not seen.
+ * </p>
+ * @author EgorBusuioc
+ * 18.10.2026
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final int MAX_SQL_LENGTH = 500;
+
+    /**
+     * Statements of the current thread, and the last one for the slow query log.
+     */
+    static final class ThreadStatements {
+        private long count;
+        private String lastSql;
+
+        long count() {
+            return count;
+        }
+
+        String lastSql() {
+            return lastSql;
+        }
+    }
+
+    private final ThreadLocal<ThreadStatements> threadStatements = ThreadLocal.withInitial(ThreadStatements::new);
+    private final ThreadLocal<TransactionStatements> transactionStatements = new ThreadLocal<>();
+    private final DistributionSummary perTransaction;
+
+    public SqlStatementCounter(MeterRegistry meterRegistry) {
+        this.perTransaction = DistributionSummary.builder("db.transaction.statements")
+                .description("SQL statements prepared by Hibernate per transaction")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        ThreadStatements statements = threadStatements.get();
+        statements.count++;
+        statements.lastSql = sql.length() > MAX_SQL_LENGTH ? sql.substring(0, MAX_SQL_LENGTH) + "..." : sql;
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionStatements transaction = transactionStatements.get();
+            if (transaction == null) {
+                transaction = new TransactionStatements();
+                TransactionSynchronizationManager.registerSynchronization(transaction);
+                transactionStatements.set(transaction);
+            }
+            transaction.count++;
+        }
+        return sql;
+    }
+
+    /**
+     * @return the statements of the current thread so far
+     */
+    ThreadStatements currentThread() {
+        return threadStatements.get();
+    }
+
+    private final class TransactionStatements implements TransactionSynchronization {
+        private long count;
+
+        @Override
+        public void suspend() {
+            transactionStatements.remove();
+        }
+
+        @Override
+        public void resume() {
+            transactionStatements.set(this);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            transactionStatements.remove();
+            perTransaction.record(count);
+        }
+    }
+}